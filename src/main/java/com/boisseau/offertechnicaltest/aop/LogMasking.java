@@ -0,0 +1,170 @@
+package com.boisseau.offertechnicaltest.aop;
+
+import com.boisseau.offertechnicaltest.exception.UserValidationException;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.validation.Violation;
+
+import java.lang.reflect.RecordComponent;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+// Renders service arguments and results for the logs without personal data: in any record, at any depth, and in
+// the parameters of the logged method, a name keeps its first letter, a phone number its last two digits and a
+// birthdate its year. Collections show their first elements and their size, long strings are cut.
+// Exceptions show their types, never their messages: a constraint violation quotes the values it refused.
+public final class LogMasking {
+
+    private static final Set<String> NAME_FIELDS = Set.of("name");
+    private static final Set<String> PHONE_FIELDS = Set.of("phoneNumber", "phoneKey");
+    private static final Set<String> BIRTHDATE_FIELDS = Set.of("birthdate", "bornFrom", "bornTo");
+
+    // only against cycles: records and collections deeper than this are cut, their fields are masked anyway
+    private static final int MAX_DEPTH = 16;
+    private static final int MAX_ELEMENTS = 5;
+    private static final int MAX_STRING_LENGTH = 100;
+
+    private LogMasking() {
+    }
+
+    public static String render(Object value) {
+        StringBuilder out = new StringBuilder();
+        render(value, out, 0);
+        return out.toString();
+    }
+
+    public static String renderArgs(Object[] args) {
+        return renderArgs(null, args);
+    }
+
+    // parameterNames: those of the called method, or null; a parameter is masked as a record field of its name
+    public static String renderArgs(String[] parameterNames, Object[] args) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            if (parameterNames != null && i < parameterNames.length) {
+                renderField(parameterNames[i], args[i], out, 0);
+            } else {
+                render(args[i], out, 0);
+            }
+        }
+        return out.toString();
+    }
+
+    // the exception type and where it was thrown, then the same for each cause; a rejected user lists the rules
+    public static String describe(Throwable error) {
+        StringBuilder out = new StringBuilder();
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause != error) {
+                out.append(", caused by ");
+            }
+            out.append(cause.getClass().getSimpleName());
+            if (cause instanceof UserValidationException rejection && rejection.getResult() != null) {
+                out.append(rejection.getResult().getViolations().stream().map(Violation::rule).toList());
+            }
+            StackTraceElement[] frames = cause.getStackTrace();
+            if (frames.length > 0) {
+                out.append(" at ").append(frames[0]);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void render(Object value, StringBuilder out, int depth) {
+        if (value == null) {
+            out.append("null");
+        } else if (depth >= MAX_DEPTH && isComposite(value)) {
+            out.append("...");
+        } else if (value instanceof User user) {
+            // the entity toString() shows every field
+            render(UserResponse.from(user), out, depth);
+        } else if (value.getClass().isRecord()) {
+            renderRecord((Record) value, out, depth);
+        } else if (value instanceof Collection<?> collection) {
+            renderElements(collection.iterator(), collection.size(), out, depth);
+        } else if (value instanceof Object[] array) {
+            renderElements(Arrays.asList(array).iterator(), array.length, out, depth);
+        } else if (value instanceof Map<?, ?> map) {
+            renderElements(map.entrySet().iterator(), map.size(), out, depth);
+        } else if (value instanceof Map.Entry<?, ?> entry) {
+            render(entry.getKey(), out, depth + 1);
+            out.append('=');
+            render(entry.getValue(), out, depth + 1);
+        } else {
+            String text = String.valueOf(value);
+            if (text.length() > MAX_STRING_LENGTH) {
+                out.append(text, 0, MAX_STRING_LENGTH).append("...");
+            } else {
+                out.append(text);
+            }
+        }
+    }
+
+    private static void renderRecord(Record value, StringBuilder out, int depth) {
+        out.append(value.getClass().getSimpleName()).append('[');
+        RecordComponent[] components = value.getClass().getRecordComponents();
+        for (int i = 0; i < components.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            String field = components[i].getName();
+            Object fieldValue;
+            try {
+                fieldValue = components[i].getAccessor().invoke(value);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                fieldValue = "?";
+            }
+            out.append(field).append('=');
+            renderField(field, fieldValue, out, depth + 1);
+        }
+        out.append(']');
+    }
+
+    private static void renderField(String field, Object value, StringBuilder out, int depth) {
+        if (value == null) {
+            out.append("null");
+        } else if (NAME_FIELDS.contains(field)) {
+            out.append(maskName(value.toString()));
+        } else if (PHONE_FIELDS.contains(field)) {
+            out.append(maskPhoneNumber(value.toString()));
+        } else if (BIRTHDATE_FIELDS.contains(field) && value instanceof LocalDate birthdate) {
+            out.append(birthdate.getYear()).append("-**-**");
+        } else {
+            render(value, out, depth);
+        }
+    }
+
+    private static boolean isComposite(Object value) {
+        return value.getClass().isRecord() || value instanceof Collection<?> || value instanceof Object[]
+                || value instanceof Map<?, ?> || value instanceof Map.Entry<?, ?>;
+    }
+
+    private static void renderElements(Iterator<?> elements, int size, StringBuilder out, int depth) {
+        out.append('[');
+        for (int i = 0; i < MAX_ELEMENTS && elements.hasNext(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            render(elements.next(), out, depth + 1);
+        }
+        if (size > MAX_ELEMENTS) {
+            out.append(", ... (").append(size).append(" in all)");
+        }
+        out.append(']');
+    }
+
+    static String maskName(String name) {
+        return name.isEmpty() ? "" : name.charAt(0) + "***";
+    }
+
+    static String maskPhoneNumber(String phoneNumber) {
+        String compact = phoneNumber.replace(" ", "");
+        return compact.length() <= 2 ? "**" : "*".repeat(compact.length() - 2) + compact.substring(compact.length() - 2);
+    }
+}
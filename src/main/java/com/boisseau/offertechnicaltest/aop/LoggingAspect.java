@@ -1,41 +1,44 @@
 package com.boisseau.offertechnicaltest.aop;
 
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.lang.reflect.Method;
 
+// Hands sampled service calls and every unexpected failure to ServiceCallLog, which renders and logs them on its own thread.
+// The parameter names go along, LogMasking masks a parameter by its name.
 @Aspect
 @Component
+@ConditionalOnProperty(name = "app.logging.service-calls.enabled", havingValue = "true", matchIfMissing = true)
 public class LoggingAspect {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingAspect.class);
-
     private static final String POINTCUT = "execution (* com.boisseau.offertechnicaltest.service..*(..))";
 
-    @Before(POINTCUT)
-    public void logMethodCall(JoinPoint jp) {
-        String methodName = jp.getSignature().getName();
-        String args = Arrays.toString(jp.getArgs());
-        LOGGER.info("Method called: {}, with args: {}", methodName, args);
-    }
-
-    @AfterReturning(pointcut = POINTCUT, returning = "result")
-    public void logMethodReturn(JoinPoint jp, Object result) {
-        String methodName = jp.getSignature().getName();
-        LOGGER.info("Method returned from {}, with result: {}", methodName, result);
-    }
-
-    @AfterThrowing(pointcut = POINTCUT, throwing = "exception")
-    public void logMethodError(JoinPoint jp, Throwable exception) {
-        String methodName = jp.getSignature().getName();
-        LOGGER.error("Exception in method: {}, with message: {}",
-                methodName,
-                exception.getMessage(),
-                exception
-        );
+    @Autowired
+    private ServiceCallLog serviceCallLog;
+
+    @Around(POINTCUT)
+    public Object logMethodCall(ProceedingJoinPoint jp) throws Throwable {
+        MethodSignature signature = (MethodSignature) jp.getSignature();
+        Method method = signature.getMethod();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = jp.proceed();
+        } catch (Throwable e) {
+            if (!ServiceCallLog.isExpected(e) || serviceCallLog.isSampled(method)) {
+                serviceCallLog.failed(method, signature.getParameterNames(), jp.getArgs(), e, System.nanoTime() - start);
+            }
+            throw e;
+        }
+        if (serviceCallLog.isSampled(method)) {
+            serviceCallLog.returned(method, signature.getParameterNames(), jp.getArgs(), result, System.nanoTime() - start);
+        }
+        return result;
     }
 }
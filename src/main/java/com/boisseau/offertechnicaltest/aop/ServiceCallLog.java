@@ -0,0 +1,176 @@
+package com.boisseau.offertechnicaltest.aop;
+
+import com.boisseau.offertechnicaltest.exception.ImportJobNotFoundException;
+import com.boisseau.offertechnicaltest.exception.RegistrationNotFoundException;
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Where LoggingAspect sends service calls. The calling thread only decides whether the call is sampled and puts
+// the raw arguments and result in a bounded buffer; a background thread renders them through LogMasking and logs them.
+// When the buffer is full the call is dropped rather than slowing the request down, drops are reported every second.
+// Arguments are rendered after the call returns: the DTOs are immutable records, an entity could have changed.
+@Component
+@ConditionalOnProperty(name = "app.logging.service-calls.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceCallLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceCallLog.class);
+
+    record Event(String thread, Method method, String[] parameterNames, Object[] args, Object result, Throwable error,
+                 long nanos) {
+    }
+
+    @Value("${app.logging.service-calls.buffer-size:8192}")
+    private int bufferSize;
+
+    // share of the successful calls logged, rejected requests and unknown ids included; failures are always logged
+    @Value("${app.logging.service-calls.sample-rate:0.01}")
+    private double sampleRate;
+
+    // per method, "UserRegisterService.addUser=1,UserGetDetailsService.getUserById=0.001"
+    @Value("${app.logging.service-calls.sample-rates:}")
+    private String sampleRates;
+
+    private BlockingQueue<Event> buffer;
+    private Map<String, Double> methodSampleRates;
+    private final Map<Method, Double> resolvedSampleRates = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread writer;
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        methodSampleRates = parseSampleRates(sampleRates);
+        writer = new Thread(this::drain, "service-call-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    static Map<String, Double> parseSampleRates(String sampleRates) {
+        Map<String, Double> rates = new HashMap<>();
+        if (sampleRates == null || sampleRates.isBlank()) {
+            return rates;
+        }
+        for (String part : sampleRates.split(",")) {
+            String[] rate = part.trim().split("=");
+            if (rate.length != 2) {
+                throw new IllegalArgumentException("Invalid sample rate: " + part.trim() + ".");
+            }
+            rates.put(rate[0].trim(), Double.parseDouble(rate[1].trim()));
+        }
+        return rates;
+    }
+
+    static String methodName(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    // nothing is sampled while the info level is off, the calls would only be rendered to be dropped
+    public boolean isSampled(Method method) {
+        if (!LOGGER.isInfoEnabled()) {
+            return false;
+        }
+        Double rate = resolvedSampleRates.get(method);
+        if (rate == null) {
+            rate = resolvedSampleRates.computeIfAbsent(method,
+                    m -> methodSampleRates.getOrDefault(methodName(m), sampleRate));
+        }
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    // a rejected request or an unknown id ends as a 400 or a 404: sampled and logged at info like a success, not as a failure
+    public static boolean isExpected(Throwable error) {
+        return error instanceof IllegalArgumentException
+                || error instanceof UserNotFoundException
+                || error instanceof RegistrationNotFoundException
+                || error instanceof ImportJobNotFoundException;
+    }
+
+    public void returned(Method method, String[] parameterNames, Object[] args, Object result, long nanos) {
+        offer(new Event(Thread.currentThread().getName(), method, parameterNames, args, result, null, nanos));
+    }
+
+    public void failed(Method method, String[] parameterNames, Object[] args, Throwable error, long nanos) {
+        offer(new Event(Thread.currentThread().getName(), method, parameterNames, args, null, error, nanos));
+    }
+
+    private void offer(Event event) {
+        if (!buffer.offer(event)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        long reportedDrops = 0;
+        try {
+            while (true) {
+                Event event = buffer.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    write(event);
+                }
+                long drops = dropped.get();
+                if (drops > reportedDrops) {
+                    LOGGER.warn("{} service calls not logged, the buffer of {} was full", drops - reportedDrops, bufferSize);
+                    reportedDrops = drops;
+                }
+            }
+        } catch (InterruptedException e) {
+            // log what is left before stopping
+            Event event;
+            while ((event = buffer.poll()) != null) {
+                write(event);
+            }
+        }
+    }
+
+    // rendered only when the level is on; the error is described by LogMasking, its message may hold personal data
+    private void write(Event event) {
+        try {
+            String method = methodName(event.method());
+            double millis = event.nanos() / 1e6;
+            if (event.error() == null) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("[{}] {}({}) returned {} in {} ms", event.thread(), method,
+                            LogMasking.renderArgs(event.parameterNames(), event.args()), LogMasking.render(event.result()),
+                            String.format("%.3f", millis));
+                }
+            } else if (isExpected(event.error())) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info("[{}] {}({}) rejected: {}", event.thread(), method,
+                            LogMasking.renderArgs(event.parameterNames(), event.args()), LogMasking.describe(event.error()));
+                }
+            } else if (LOGGER.isErrorEnabled()) {
+                LOGGER.error("[{}] {}({}) failed in {} ms: {}", event.thread(), method,
+                        LogMasking.renderArgs(event.parameterNames(), event.args()), String.format("%.3f", millis),
+                        LogMasking.describe(event.error()));
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not log a call to {}", event.method().getName(), e);
+        }
+    }
+}
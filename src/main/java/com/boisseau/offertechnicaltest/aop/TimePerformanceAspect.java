@@ -1,32 +1,32 @@
 package com.boisseau.offertechnicaltest.aop;
 
+import com.boisseau.offertechnicaltest.metrics.MethodLatencies;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+// Times every service call into MethodLatencies, see GET /api/admin/latencies. Nothing is logged per call.
 @Aspect
 @Component
 public class TimePerformanceAspect {
 
-    public static final Logger LOGGER= LoggerFactory.getLogger(TimePerformanceAspect.class);
-
     private static final String POINTCUT = "execution (* com.boisseau.offertechnicaltest.service..*(..))";
 
+    @Autowired
+    private MethodLatencies methodLatencies;
+
     @Around(POINTCUT)
     public Object monitorTime(ProceedingJoinPoint jp) throws Throwable {
 
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
 
         try {
             return jp.proceed();
         } finally {
-            long end = System.currentTimeMillis();
-            LOGGER.info("Time taken by {}: {} ms",
-                    jp.getSignature().getName(),
-                    (end - start));
+            methodLatencies.record(((MethodSignature) jp.getSignature()).getMethod(), System.nanoTime() - start);
         }
     }
 }
@@ -0,0 +1,109 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import com.boisseau.offertechnicaltest.model.dto.UserCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded, short-lived cache of the ids GET /api/user/{id} found no user for, so that repeated probes of
+// unknown ids do not each cost a query. Ids are removed as soon as a user is created with them; an id
+// a concurrent lookup found missing is only cached if no user was created while that lookup ran.
+@Component
+public class MissingUserIdCache {
+
+    private final boolean enabled;
+    private final long maximumSize;
+    private final Cache<Integer, Boolean> cache;
+    // bumped on every creation, see stamp()
+    private final AtomicLong creations = new AtomicLong();
+
+    public MissingUserIdCache(@Value("${app.users.missing-cache.enabled:true}") boolean enabled,
+                              @Value("${app.users.missing-cache.maximum-size:100000}") long maximumSize,
+                              @Value("${app.users.missing-cache.ttl-ms:30000}") long ttlMs) {
+        this.enabled = enabled;
+        this.maximumSize = maximumSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+    }
+
+    public boolean isMissing(int id) {
+        return enabled && cache.getIfPresent(id) != null;
+    }
+
+    // to be read before the lookup whose result is given to add()
+    public long stamp() {
+        return creations.get();
+    }
+
+    public void add(int id, long stamp) {
+        if (!enabled) {
+            return;
+        }
+        cache.put(id, Boolean.TRUE);
+        // a user was created meanwhile, maybe with this id
+        if (creations.get() != stamp) {
+            cache.invalidate(id);
+        }
+    }
+
+    public void addAll(Collection<Integer> ids, long stamp) {
+        for (Integer id : ids) {
+            add(id, stamp);
+        }
+    }
+
+    // Once now, and again after the commit of the current transaction if there is one:
+    // a lookup between the insert and the commit still finds no user.
+    public void created(int id) {
+        created(List.of(id));
+    }
+
+    public void created(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        invalidate(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(ids);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Collection<Integer> ids) {
+        creations.incrementAndGet();
+        cache.invalidateAll(ids);
+    }
+
+    public void invalidateAll() {
+        creations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public UserCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new UserCacheStats(
+                maximumSize,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()
+        );
+    }
+}
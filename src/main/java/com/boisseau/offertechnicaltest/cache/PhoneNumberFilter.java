@@ -0,0 +1,191 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import com.boisseau.offertechnicaltest.model.dto.PhoneNumberFilterStats;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Membership filter over the canonical key of every registered phone number, so that numbers which are
+// definitely not registered skip the existsByPhoneKey query.
+// Built at startup, fed on every save (again once its transaction commits), and rebuilt in the background with twice the
+// capacity once more numbers than it was sized for have been put.
+// With build-in-background the first build does not hold up startup either: until it is done every number
+// is checked in the database.
+@Component
+@DependsOn({"phoneKeyBackfill", "userSnapshotService"})
+public class PhoneNumberFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneNumberFilter.class);
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.users.phone-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${app.users.phone-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.users.phone-filter.build-in-background:false}")
+    private boolean buildInBackground;
+
+    private volatile BloomFilter current;
+    // while a rebuild runs, new numbers go to both filters
+    private volatile BloomFilter next;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong queriesSkipped = new AtomicLong();
+    private final AtomicLong queriesFallenThrough = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    @PostConstruct
+    public void build() {
+        rebuilding.set(true);
+        if (buildInBackground) {
+            CompletableFuture.runAsync(() -> rebuild(expectedInsertions));
+        } else {
+            rebuild(expectedInsertions);
+        }
+    }
+
+    public boolean mightContain(long phoneKey) {
+        BloomFilter filter = current;
+        if (filter == null || filter.mightContain(phoneKey)) {
+            queriesFallenThrough.incrementAndGet();
+            return true;
+        }
+        queriesSkipped.incrementAndGet();
+        return false;
+    }
+
+    // the database said no after mightContain() said maybe
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    public void add(long phoneKey) {
+        addAll(List.of(phoneKey));
+    }
+
+    // Inside a transaction the keys are put again once it commits: a rebuild that starts before the commit
+    // reads the keys without the uncommitted rows, and may not have created its filter yet when they are first put.
+    public void addAll(Collection<Long> phoneKeys) {
+        if (phoneKeys.isEmpty()) {
+            return;
+        }
+        put(phoneKeys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(phoneKeys);
+                }
+            });
+        }
+    }
+
+    private void put(Collection<Long> phoneKeys) {
+        BloomFilter filter = current;
+        BloomFilter pending = next;
+        for (long phoneKey : phoneKeys) {
+            if (filter != null) {
+                filter.put(phoneKey);
+            }
+            if (pending != null) {
+                pending.put(phoneKey);
+            }
+        }
+        if (filter != null && filter.getInsertions() > filter.getExpectedInsertions() && rebuilding.compareAndSet(false, true)) {
+            long capacity = filter.getExpectedInsertions() * 2;
+            CompletableFuture.runAsync(() -> rebuild(capacity));
+        }
+    }
+
+    // returns false when a rebuild is already running
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        BloomFilter filter = current;
+        long capacity = filter == null ? expectedInsertions : Math.max(expectedInsertions, filter.getInsertions() * 2);
+        CompletableFuture.runAsync(() -> rebuild(capacity));
+        return true;
+    }
+
+    private void rebuild(long capacity) {
+        try {
+            long start = System.nanoTime();
+            BloomFilter filter = new BloomFilter(capacity, falsePositiveRate);
+            next = filter;
+
+            // not read-only: the keys must come from the primary, a replica may miss the latest ones
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                try (Stream<Long> phoneKeys = userRepo.streamAllPhoneKeys()) {
+                    phoneKeys.forEach(filter::put);
+                }
+            });
+
+            current = filter;
+            rebuilds.incrementAndGet();
+            LOGGER.info("Phone number filter built with {} numbers, capacity {}, {} KiB, in {} ms",
+                    filter.getInsertions(),
+                    capacity,
+                    filter.getMemoryBytes() / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            // keep answering with the previous filter, it is only less precise
+            LOGGER.error("Phone number filter rebuild failed", e);
+            if (current == null) {
+                throw e;
+            }
+        } finally {
+            next = null;
+            rebuilding.set(false);
+        }
+    }
+
+    public PhoneNumberFilterStats getStats() {
+        BloomFilter filter = current;
+        if (filter == null) {
+            return new PhoneNumberFilterStats(expectedInsertions, 0, 0, 0, 0, 1, 0,
+                    queriesSkipped.get(), queriesFallenThrough.get(), falsePositives.get(), rebuilds.get(), true);
+        }
+        long skipped = queriesSkipped.get();
+        long falsePositive = falsePositives.get();
+        long negatives = skipped + falsePositive;
+        return new PhoneNumberFilterStats(
+                filter.getExpectedInsertions(),
+                filter.getInsertions(),
+                filter.getBitCount(),
+                filter.getHashCount(),
+                filter.getMemoryBytes(),
+                filter.expectedFalsePositiveRate(),
+                negatives == 0 ? 0 : (double) falsePositive / negatives,
+                skipped,
+                queriesFallenThrough.get(),
+                falsePositive,
+                rebuilds.get(),
+                rebuilding.get()
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import com.boisseau.offertechnicaltest.model.dto.UserCacheStats;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+// Bounded read-through cache of GET /api/user/{id} responses.
+// Caffeine evicts with W-TinyLFU: recent entries get a chance in a small window,
+// then only stay if they are requested more often than what they would replace.
+@Component
+public class UserResponseCache {
+
+    private final long maximumSize;
+    private final Cache<Integer, UserResponse> cache;
+
+    public UserResponseCache(@Value("${app.users.cache.maximum-size:10000}") long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    // loader exceptions are thrown to the caller and nothing is cached
+    public UserResponse get(int id, IntFunction<UserResponse> loader) {
+        return cache.get(id, key -> loader.apply(key));
+    }
+
+    // one loader call for all the ids that are not cached; ids the loader does not return
+    // are absent from the result and are not cached
+    public Map<Integer, UserResponse> getAll(Collection<Integer> ids,
+                                             Function<Set<? extends Integer>, Map<Integer, UserResponse>> loader) {
+        return cache.getAll(ids, loader);
+    }
+
+    public UserResponse getIfPresent(int id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void put(UserResponse user) {
+        cache.put(user.id(), user);
+    }
+
+    public void invalidate(int id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public UserCacheStats getStats() {
+        CacheStats stats = cache.stats();
+        return new UserCacheStats(
+                maximumSize,
+                cache.estimatedSize(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount()
+        );
+    }
+}
@@ -0,0 +1,18 @@
+package com.boisseau.offertechnicaltest.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// The one DataSource bean, in place of the pool of Spring Boot: read-only transactions on the replicas, everything
+// else on the primary, see ReplicaRouting, which owns and closes the pools. Being the only one, it is also the one
+// DatabaseAdmissionGate wraps, so a connection takes a single permit whichever pool it comes from.
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public DataSource dataSource(ReplicaRouting replicaRouting) {
+        return replicaRouting.getDataSource();
+    }
+}
@@ -0,0 +1,123 @@
+package com.boisseau.offertechnicaltest.config;
+
+import com.boisseau.offertechnicaltest.model.dto.DatabaseGateStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounds the number of threads holding a database connection at once. On virtual threads every request has its
+// own thread, and thousands of them would otherwise pile up inside the connection pool: past app.db.gate.permits
+// they wait in a fair queue (a java.util.concurrent semaphore, which does not pin carrier threads) for at most
+// app.db.gate.timeout-ms, then fail fast with a 503.
+// The permit is taken with the connection and given back when it is closed, so a transaction never waits for a
+// permit while it holds a connection.
+@Component
+@ConditionalOnProperty(name = "app.db.gate.enabled", havingValue = "true")
+public class DatabaseAdmissionGate implements BeanPostProcessor {
+
+    private final int permitCount;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public DatabaseAdmissionGate(@Value("${app.db.gate.permits:10}") int permitCount,
+                                 @Value("${app.db.gate.timeout-ms:2000}") long timeoutMillis) {
+        if (permitCount < 1) {
+            throw new IllegalArgumentException("app.db.gate.permits must be positive.");
+        }
+        this.permitCount = permitCount;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(permitCount, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof GatedDataSource)) {
+            return new GatedDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    public DatabaseGateStats getStats() {
+        return new DatabaseGateStats(
+                permitCount,
+                permits.availablePermits(),
+                permits.getQueueLength(),
+                admitted.get(),
+                rejected.get()
+        );
+    }
+
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private Connection admit(ConnectionSource source) throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new SQLTransientConnectionException("Too many concurrent database requests.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for the database.", e);
+        }
+        try {
+            Connection connection = source.get();
+            admitted.incrementAndGet();
+            return releasingOnClose(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+
+    private final class GatedDataSource extends DelegatingDataSource {
+
+        GatedDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return admit(() -> super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return admit(() -> super.getConnection(username, password));
+        }
+    }
+}
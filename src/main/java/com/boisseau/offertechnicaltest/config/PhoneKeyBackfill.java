@@ -0,0 +1,84 @@
+package com.boisseau.offertechnicaltest.config;
+
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Users saved before users.phone_key existed only have the raw phone_number: fill in their key.
+// When several legacy rows hold the same number in different formats, the oldest one keeps the key
+// and the others are logged and left without one.
+// Finding those rows reads the whole table, so it is done once per database: the run is recorded in
+// startup_tasks (V2 migration) and later boots only read that row.
+@Component
+@DependsOn("entityManagerFactory")
+public class PhoneKeyBackfill {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhoneKeyBackfill.class);
+
+    static final String TASK = "phone-key-backfill";
+    private static final int CHUNK_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void backfillPhoneKeys() {
+        Integer done = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM startup_tasks WHERE name = ?", Integer.class, TASK);
+        if (done != null && done > 0) {
+            return;
+        }
+
+        // legacy keys in id order, the first row of each number wins
+        Map<Long, Integer> candidates = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, phone_number FROM users WHERE phone_key IS NULL AND phone_number IS NOT NULL ORDER BY id",
+                row -> {
+                    int id = row.getInt("id");
+                    // rows older than the country table were all checked against the French plan
+                    long key = PhoneNumbers.toKey(row.getString("phone_number"));
+                    if (key == PhoneNumbers.NO_KEY) {
+                        LOGGER.warn("User {} has an invalid phone number, no phone key set", id);
+                    } else if (candidates.putIfAbsent(key, id) != null) {
+                        LOGGER.warn("User {} has the phone number {} of another user, no phone key set", id, PhoneNumbers.toE164(key));
+                    }
+                });
+
+        // only the candidate numbers are looked up in the phone_key index, never every key of the table
+        Set<Long> usedKeys = new HashSet<>();
+        List<Long> keys = new ArrayList<>(candidates.keySet());
+        for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = keys.subList(from, Math.min(keys.size(), from + CHUNK_SIZE));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            usedKeys.addAll(jdbcTemplate.queryForList(
+                    "SELECT phone_key FROM users WHERE phone_key IN (" + placeholders + ")", Long.class, chunk.toArray()));
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        candidates.forEach((key, id) -> {
+            if (usedKeys.contains(key)) {
+                LOGGER.warn("User {} has the phone number {} of another user, no phone key set", id, PhoneNumbers.toE164(key));
+            } else {
+                updates.add(new Object[] { key, id });
+            }
+        });
+
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE users SET phone_key = ? WHERE id = ?", updates);
+            LOGGER.info("Phone key set on {} existing users", updates.size());
+        }
+        jdbcTemplate.update("INSERT INTO startup_tasks (name, completed_at) VALUES (?, CURRENT_TIMESTAMP)", TASK);
+    }
+}
@@ -0,0 +1,41 @@
+package com.boisseau.offertechnicaltest.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+// Non-blocking access to the users table for the "reactive" profile.
+// The R2DBC URL names the same in-memory H2 database as spring.datasource.url: Flyway still creates the schema
+// and the startup tasks (phone key backfill, phone number filter) still run on JDBC, requests only use R2DBC.
+// Spring Boot's JDBC DataSource configuration backs off as soon as there is a ConnectionFactory: the DataSource of
+// DataSourceConfig binds spring.datasource.* itself, and JPA and Flyway come up on it as in servlet mode.
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDatabaseConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionFactory(@Value("${app.reactive.r2dbc.url:r2dbc:h2:mem:///boisseau}") String url,
+                                            @Value("${app.reactive.r2dbc.username:sa}") String username,
+                                            @Value("${app.reactive.r2dbc.password:}") String password,
+                                            @Value("${app.reactive.r2dbc.pool.max-size:10}") int maxSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .maxSize(maxSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
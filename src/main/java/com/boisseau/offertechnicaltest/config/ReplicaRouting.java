@@ -0,0 +1,314 @@
+package com.boisseau.offertechnicaltest.config;
+
+import com.boisseau.offertechnicaltest.model.dto.ReplicaStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// The connection pools behind the application DataSource (DataSourceConfig): the primary one, configured by
+// spring.datasource.*, and one per replica of app.datasource.replicas.urls.
+// Connections are taken lazily, on the first statement, so that a read-only transaction (readOnly = true, and the
+// findById/findAllById/count of Spring Data repositories) can get its connection from a replica, round robin. Every
+// other transaction, and any statement outside one, runs on the primary.
+// The lag of each replica is measured every lag-check-ms, to within that period: a heartbeat row (V4 migration) is
+// written on the primary and read back on the replica. A replica more than max-lag-ms behind is left out until it
+// catches up; with none left, read-only transactions go to the primary.
+// Read-your-own-writes: the ids written here are remembered for as long as the slowest replica in the rotation may
+// still miss them, and onPrimary() sends a read to the primary, see UserGetDetailsService.
+// Meters: hikaricp.connections.* tagged with the pool (primary, replica-1, replica-2...), datasource.replica.lag{pool}
+// and datasource.reads.primary{reason}, the read-only transactions that did not run on a replica.
+@Component
+public class ReplicaRouting {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRouting.class);
+
+    public static final String RECENT_WRITE = "recent-write";
+    public static final String NOT_FOUND = "not-found";
+    private static final String REPLICAS_LAGGING = "replicas-lagging";
+
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+    private static final ThreadLocal<Boolean> ON_PRIMARY = new ThreadLocal<>();
+
+    private static final class Replica {
+        final HikariDataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        // out of the rotation until its first lag check
+        volatile long lagMillis = UNKNOWN_LAG;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+    }
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.datasource.replicas.urls:}")
+    private List<String> urls;
+
+    @Value("${app.datasource.replicas.username:${spring.datasource.username:sa}}")
+    private String username;
+
+    @Value("${app.datasource.replicas.password:${spring.datasource.password:}}")
+    private String password;
+
+    @Value("${app.datasource.replicas.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    @Value("${app.datasource.replicas.max-lag-ms:5000}")
+    private long maxLagMillis;
+
+    @Value("${app.datasource.replicas.lag-check-ms:1000}")
+    private long lagCheckMillis;
+
+    @Value("${app.datasource.replicas.recent-writes.maximum-size:1000000}")
+    private long recentWritesMaximumSize;
+
+    private HikariDataSource primary;
+    private JdbcTemplate primaryJdbcTemplate;
+    private LazyConnectionDataSourceProxy dataSource;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private Cache<Integer, Long> recentWrites;
+    private Counter lagFallbacks;
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "replica-lag-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() throws Exception {
+        // spring.datasource.* bound here rather than injected: Spring Boot only registers its DataSourceProperties
+        // when it configures the DataSource, which it does not do next to the R2DBC ConnectionFactory (reactive profile)
+        Binder binder = Binder.get(environment);
+        DataSourceProperties properties = binder.bindOrCreate("spring.datasource", DataSourceProperties.class);
+        properties.setBeanClassLoader(getClass().getClassLoader());
+        properties.afterPropertiesSet();
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        // spring.datasource.hikari.* as for the pool Spring Boot would have created
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setMetricRegistry(meterRegistry);
+        primaryJdbcTemplate = new JdbcTemplate(primary);
+        dataSource = new LazyConnectionDataSourceProxy(primary);
+
+        for (String url : urls) {
+            // app.datasource.replicas.urls= binds to one blank entry
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            // a replica down at startup is only kept out of the rotation
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricRegistry(meterRegistry);
+            Replica state = new Replica(replica);
+            Gauge.builder("datasource.replica.lag", state, r -> r.lagMillis == UNKNOWN_LAG ? Double.NaN : r.lagMillis)
+                    .tag("pool", replica.getPoolName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            replicas.add(state);
+        }
+        if (replicas.isEmpty()) {
+            return;
+        }
+
+        dataSource.setReadOnlyDataSource(new ReplicaDataSource());
+        recentWrites = Caffeine.newBuilder()
+                .maximumSize(recentWritesMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(maxLagMillis + lagCheckMillis))
+                .build();
+        lagFallbacks = meterRegistry.counter("datasource.reads.primary", "reason", REPLICAS_LAGGING);
+        // the first check waits for Flyway to have created the heartbeat table
+        lagChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkLag();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Replica lag check failed", e);
+            }
+        }, lagCheckMillis, lagCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+        primary.close();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    // public for the tests, which move their stand-in replica forward by hand
+    public void checkLag() {
+        try {
+            primaryJdbcTemplate.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            LOGGER.warn("Replication heartbeat not written: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            long lag;
+            try {
+                Long beat = replica.jdbcTemplate.queryForObject("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+                lag = beat == null ? UNKNOWN_LAG : Math.max(0, System.currentTimeMillis() - beat);
+            } catch (DataAccessException e) {
+                lag = UNKNOWN_LAG;
+            }
+            boolean wasInRotation = replica.lagMillis <= maxLagMillis;
+            replica.lagMillis = lag;
+            if (wasInRotation != lag <= maxLagMillis) {
+                LOGGER.info("Replica {} {} the rotation, lag {}", replica.dataSource.getPoolName(),
+                        wasInRotation ? "leaves" : "joins", lag == UNKNOWN_LAG ? "unknown" : lag + " ms");
+            }
+        }
+    }
+
+    // ids just saved on the primary, no-op without replicas
+    public void written(int id) {
+        if (recentWrites != null) {
+            recentWrites.put(id, System.currentTimeMillis());
+        }
+    }
+
+    public void written(Collection<Integer> ids) {
+        if (recentWrites != null) {
+            long now = System.currentTimeMillis();
+            for (Integer id : ids) {
+                recentWrites.put(id, now);
+            }
+        }
+    }
+
+    // saved here recently enough for a replica in the rotation not to have it yet
+    public boolean isRecentlyWritten(int id) {
+        if (recentWrites == null) {
+            return false;
+        }
+        Long writtenAt = recentWrites.getIfPresent(id);
+        if (writtenAt == null) {
+            return false;
+        }
+        long slowest = 0;
+        for (Replica replica : replicas) {
+            long lag = replica.lagMillis;
+            if (lag <= maxLagMillis) {
+                slowest = Math.max(slowest, lag);
+            }
+        }
+        return System.currentTimeMillis() - writtenAt <= slowest + lagCheckMillis;
+    }
+
+    // the read-only transactions started by read run on the primary; reason tags datasource.reads.primary
+    public <T> T onPrimary(String reason, Supplier<T> read) {
+        if (replicas.isEmpty()) {
+            return read.get();
+        }
+        meterRegistry.counter("datasource.reads.primary", "reason", reason).increment();
+        Boolean previous = ON_PRIMARY.get();
+        ON_PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                ON_PRIMARY.remove();
+            } else {
+                ON_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    public List<ReplicaStats> getStats() {
+        List<ReplicaStats> stats = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            long lag = replica.lagMillis;
+            stats.add(new ReplicaStats(
+                    replica.dataSource.getPoolName(),
+                    replica.dataSource.getJdbcUrl(),
+                    lag <= maxLagMillis,
+                    lag == UNKNOWN_LAG ? null : lag));
+        }
+        return stats;
+    }
+
+    private Connection readOnlyConnection() throws SQLException {
+        if (Boolean.TRUE.equals(ON_PRIMARY.get())) {
+            return primary.getConnection();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.lagMillis > maxLagMillis) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                LOGGER.warn("Replica {} unavailable, out of the rotation until its next lag check: {}",
+                        replica.dataSource.getPoolName(), e.getMessage());
+                replica.lagMillis = UNKNOWN_LAG;
+            }
+        }
+        lagFallbacks.increment();
+        return primary.getConnection();
+    }
+
+    // what LazyConnectionDataSourceProxy asks for the connection of a read-only transaction
+    private final class ReplicaDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readOnlyConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return readOnlyConnection();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.boisseau.offertechnicaltest.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Users created while User.id was an IDENTITY column hold ids users_seq knows nothing about:
+// move the sequence past them before the first insert. The sequence only ever moves forward,
+// so this is a no-op on a fresh database and on every later boot.
+@Component
+@DependsOn("entityManagerFactory")
+public class UserIdSequenceInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserIdSequenceInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequenceWithExistingIds() {
+        long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        long nextValue = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'USERS_SEQ'", Long.class);
+
+        if (nextValue <= maxId) {
+            jdbcTemplate.execute("ALTER SEQUENCE users_seq RESTART WITH " + (maxId + 1));
+            LOGGER.info("users_seq moved from {} to {} to skip existing user ids", nextValue, maxId + 1);
+        }
+    }
+}
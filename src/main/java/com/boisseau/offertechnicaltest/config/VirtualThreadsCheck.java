@@ -0,0 +1,25 @@
+package com.boisseau.offertechnicaltest.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// The build targets Java 17, where Spring Boot silently ignores spring.threads.virtual.enabled: requests would stay
+// on the platform thread pool while the 'virtual' profile looks active. Refuse to start instead.
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsCheck {
+
+    static final int MINIMUM_JAVA = 21;
+
+    public VirtualThreadsCheck() {
+        check(Runtime.version().feature());
+    }
+
+    static void check(int javaVersion) {
+        if (javaVersion < MINIMUM_JAVA) {
+            throw new IllegalStateException("spring.threads.virtual.enabled needs a Java " + MINIMUM_JAVA
+                    + "+ runtime, this one is Java " + javaVersion + ": run without the 'virtual' profile or on Java "
+                    + MINIMUM_JAVA + ".");
+        }
+    }
+}
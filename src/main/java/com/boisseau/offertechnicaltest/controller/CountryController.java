@@ -0,0 +1,29 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CountryController {
+
+    @Autowired
+    private CountryRegistry countryRegistry;
+
+    @GetMapping("/countries")
+    public ResponseEntity<?> getCountries(){
+        return new ResponseEntity<>(countryRegistry.getTable().getCountries(), HttpStatus.OK);
+    }
+
+    // reads app.countries.location again; an invalid table is refused with a 400 and the current one is kept
+    @PostMapping("/countries/reload")
+    public ResponseEntity<?> reload(){
+        return new ResponseEntity<>(countryRegistry.reload().getCountries(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,25 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.config.DatabaseAdmissionGate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "app.db.gate.enabled", havingValue = "true")
+public class DatabaseGateController {
+
+    @Autowired
+    private DatabaseAdmissionGate databaseAdmissionGate;
+
+    @GetMapping("/db-gate")
+    public ResponseEntity<?> getStats(){
+        return new ResponseEntity<>(databaseAdmissionGate.getStats(), HttpStatus.OK);
+    }
+}
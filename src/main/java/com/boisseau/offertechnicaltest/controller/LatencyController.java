@@ -0,0 +1,22 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.metrics.MethodLatencies;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// non-blocking, so served by both the servlet and the reactive stack
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+public class LatencyController {
+
+    @Autowired
+    private MethodLatencies methodLatencies;
+
+    @GetMapping("/latencies")
+    public ResponseEntity<?> getStats(){
+        return new ResponseEntity<>(methodLatencies.getStats(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,31 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class PhoneNumberFilterController {
+
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @GetMapping("/phone-filter")
+    public ResponseEntity<?> getStats(){
+        return new ResponseEntity<>(phoneNumberFilter.getStats(), HttpStatus.OK);
+    }
+
+    @PostMapping("/phone-filter/rebuild")
+    public ResponseEntity<?> rebuild(){
+        if (!phoneNumberFilter.rebuildAsync()) {
+            return new ResponseEntity<>(phoneNumberFilter.getStats(), HttpStatus.CONFLICT);
+        }
+        return new ResponseEntity<>(phoneNumberFilter.getStats(), HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,38 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.service.ReactiveUserGetDetailsService;
+import com.boisseau.offertechnicaltest.service.ReactiveUserRegisterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+// POST /api/users and GET /api/user/{id} for the "reactive" profile, errors go through GlobalExceptionHandler
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    @Autowired
+    private ReactiveUserRegisterService reactiveUserRegisterService;
+
+    @Autowired
+    private ReactiveUserGetDetailsService reactiveUserGetDetailsService;
+
+    @PostMapping("/users")
+    public Mono<ResponseEntity<UserResponse>> addUser(@RequestBody UserCreationRequest request){
+        return reactiveUserRegisterService.addUser(request)
+                .map(user -> new ResponseEntity<>(user, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/user/{id}")
+    public Mono<ResponseEntity<UserResponse>> getUserById(@PathVariable int id){
+        return reactiveUserGetDetailsService.getUserById(id)
+                .map(user -> new ResponseEntity<>(user, HttpStatus.OK));
+    }
+}
@@ -0,0 +1,23 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReplicaController {
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @GetMapping("/replicas")
+    public ResponseEntity<?> getStats(){
+        return new ResponseEntity<>(replicaRouting.getStats(), HttpStatus.OK);
+    }
+}
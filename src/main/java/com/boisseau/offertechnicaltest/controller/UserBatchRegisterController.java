@@ -0,0 +1,31 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.model.dto.UserBatchResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.service.UserBatchRegisterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserBatchRegisterController {
+
+    @Autowired
+    private UserBatchRegisterService userBatchRegisterService;
+
+    @PostMapping("/users/batch")
+    public ResponseEntity<?> addUsers(@RequestBody List<UserCreationRequest> requests){
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(requests);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+
+    }
+
+}
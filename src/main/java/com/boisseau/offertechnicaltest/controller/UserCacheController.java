@@ -0,0 +1,44 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserCacheController {
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @GetMapping("/user-cache")
+    public ResponseEntity<?> getStats(){
+        return new ResponseEntity<>(userResponseCache.getStats(), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/user-cache")
+    public ResponseEntity<?> clear(){
+        userResponseCache.invalidateAll();
+        return new ResponseEntity<>(userResponseCache.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/missing-user-cache")
+    public ResponseEntity<?> getMissingStats(){
+        return new ResponseEntity<>(missingUserIdCache.getStats(), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/missing-user-cache")
+    public ResponseEntity<?> clearMissing(){
+        missingUserIdCache.invalidateAll();
+        return new ResponseEntity<>(missingUserIdCache.getStats(), HttpStatus.OK);
+    }
+}
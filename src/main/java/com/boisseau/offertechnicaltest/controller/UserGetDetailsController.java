@@ -1,23 +1,58 @@
 package com.boisseau.offertechnicaltest.controller;
 
+import com.boisseau.offertechnicaltest.model.dto.UserMultiGetResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserPageResponse;
 import com.boisseau.offertechnicaltest.model.dto.UserResponse;
 import com.boisseau.offertechnicaltest.service.UserGetDetailsService;
+import com.boisseau.offertechnicaltest.service.UserListService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api")
 @CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserGetDetailsController {
 
     @Autowired
     private UserGetDetailsService userGetDetailsService;
 
+    @Autowired
+    private UserListService userListService;
+
     @GetMapping("/user/{id}")
     public ResponseEntity<?> getUserById(@PathVariable int id){
         UserResponse user = userGetDetailsService.getUserById(id);
         return new ResponseEntity<>(user, HttpStatus.OK);
     }
+
+    @GetMapping("/users")
+    public ResponseEntity<?> getUsers(@RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(required = false) String name,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornFrom,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate bornTo){
+        UserPageResponse page = userListService.getUsers(cursor, size, name, bornFrom, bornTo);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/users", params = "ids")
+    public ResponseEntity<?> getUsersByIds(@RequestParam List<Integer> ids){
+        UserMultiGetResponse users = userGetDetailsService.getUsersByIds(ids);
+        return new ResponseEntity<>(users, HttpStatus.OK);
+    }
+
+    // same as GET /users?ids=, for id lists too long for a query string
+    @PostMapping("/users/by-ids")
+    public ResponseEntity<?> getUsersByIdsFromBody(@RequestBody List<Integer> ids){
+        UserMultiGetResponse users = userGetDetailsService.getUsersByIds(ids);
+        return new ResponseEntity<>(users, HttpStatus.OK);
+    }
 }
@@ -0,0 +1,49 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.model.dto.ImportJobRequest;
+import com.boisseau.offertechnicaltest.model.dto.ImportJobResponse;
+import com.boisseau.offertechnicaltest.service.UserImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserImportController {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @PostMapping
+    public ResponseEntity<?> startImport(@RequestBody ImportJobRequest request){
+        ImportJobResponse job = userImportService.startImport(request.fileName());
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable int id){
+        ImportJobResponse job = userImportService.resumeImport(id);
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getImports(){
+        return new ResponseEntity<>(userImportService.getImports(), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable int id){
+        return new ResponseEntity<>(userImportService.getImport(id), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/rejections")
+    public ResponseEntity<?> getRejections(@PathVariable int id,
+                                           @RequestParam(defaultValue = "0") long afterLine,
+                                           @RequestParam(defaultValue = "100") int size){
+        return new ResponseEntity<>(userImportService.getRejections(id, afterLine, size), HttpStatus.OK);
+    }
+}
@@ -4,6 +4,8 @@ import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
 import com.boisseau.offertechnicaltest.model.dto.UserResponse;
 import com.boisseau.offertechnicaltest.service.UserRegisterService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +13,9 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/api")
 @CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+// replaced by UserWriteBehindController in write-behind mode
+@ConditionalOnProperty(name = "app.users.write-behind.enabled", havingValue = "false", matchIfMissing = true)
 public class UserRegisterController {
 
     @Autowired
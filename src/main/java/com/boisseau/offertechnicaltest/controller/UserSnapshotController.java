@@ -0,0 +1,23 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.service.UserSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserSnapshotController {
+
+    @Autowired
+    private UserSnapshotService userSnapshotService;
+
+    @PostMapping("/user-snapshots")
+    public ResponseEntity<?> createSnapshot(){
+        return new ResponseEntity<>(userSnapshotService.createSnapshot(), HttpStatus.CREATED);
+    }
+}
@@ -0,0 +1,38 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.model.dto.RegistrationResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.service.UserWriteBehindService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "app.users.write-behind.enabled", havingValue = "true")
+public class UserWriteBehindController {
+
+    @Autowired
+    private UserWriteBehindService userWriteBehindService;
+
+    // 202 with the tracking id, the user is written shortly after
+    @PostMapping("/users")
+    public ResponseEntity<RegistrationResponse> addUser(@RequestBody UserCreationRequest request){
+        RegistrationResponse registration = userWriteBehindService.addUser(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/registrations/" + registration.trackingId()))
+                .body(registration);
+    }
+
+    @GetMapping("/registrations/{trackingId}")
+    public ResponseEntity<RegistrationResponse> getRegistration(@PathVariable String trackingId){
+        return new ResponseEntity<>(userWriteBehindService.getRegistration(trackingId), HttpStatus.OK);
+    }
+}
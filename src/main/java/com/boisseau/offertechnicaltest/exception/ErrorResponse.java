@@ -1,6 +1,10 @@
 package com.boisseau.offertechnicaltest.exception;
 
+import com.boisseau.offertechnicaltest.validation.Violation;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class ErrorResponse {
 
@@ -8,6 +12,9 @@ public class ErrorResponse {
     private int status;
     private String error;
     private String message;
+    // every failing field of a rejected user, absent for other errors
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Violation> violations;
 
     // Constructors
 
@@ -18,6 +25,11 @@ public class ErrorResponse {
         this.message = message;
     }
 
+    public ErrorResponse(LocalDateTime timestamp, int status, String error, String message, List<Violation> violations){
+        this(timestamp, status, error, message);
+        this.violations = violations;
+    }
+
     // getters
 
     public LocalDateTime getTimestamp() {
@@ -36,4 +48,8 @@ public class ErrorResponse {
         return message;
     }
 
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
 }
@@ -0,0 +1,7 @@
+package com.boisseau.offertechnicaltest.exception;
+
+public class RegistrationNotFoundException extends RuntimeException {
+    public RegistrationNotFoundException(String message) {
+        super(message);
+    }
+}
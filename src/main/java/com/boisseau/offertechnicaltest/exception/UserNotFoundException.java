@@ -1,7 +1,8 @@
 package com.boisseau.offertechnicaltest.exception;
 
+// Unknown ids are probed a lot and always end as a plain 404: no stack trace is filled in.
 public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,24 @@
+package com.boisseau.offertechnicaltest.exception;
+
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+
+// Carries a failed ValidationResult to GlobalExceptionHandler. A rejected request is an expected outcome,
+// not a bug: no stack trace is filled in.
+public class UserValidationException extends IllegalArgumentException {
+
+    private final transient ValidationResult result;
+
+    public UserValidationException(ValidationResult result) {
+        super(result.getMessage());
+        this.result = result;
+    }
+
+    public ValidationResult getResult() {
+        return result;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,135 @@
+package com.boisseau.offertechnicaltest.metrics;
+
+import com.boisseau.offertechnicaltest.model.dto.LatencyReport;
+import com.boisseau.offertechnicaltest.model.dto.LatencyStats;
+import com.boisseau.offertechnicaltest.model.dto.MethodLatencyStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Latency histograms of the service methods, filled by TimePerformanceAspect.
+// Calls are recorded in nanoseconds into one HdrHistogram Recorder per method (wait-free, no lock, no allocation).
+// Every app.metrics.latency.interval-ms the recorders are swapped: the interval histogram is kept as the last
+// interval, added to the since-start one, and appended to app.metrics.latency.log-file when it is set.
+@Component
+public class MethodLatencies {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodLatencies.class);
+
+    // 1 us to 1 min at 2 significant digits: about 20 KiB per histogram
+    private static final long LOWEST_NANOS = 1_000;
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final class MethodHistograms {
+        final String name;
+        final Recorder recorder = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+        final Histogram sinceStart = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+        Histogram lastInterval = new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+
+        MethodHistograms(String name) {
+            this.name = name;
+        }
+    }
+
+    @Value("${app.metrics.latency.interval-ms:10000}")
+    private long intervalMillis;
+
+    // HdrHistogram log format, read with HistogramLogReader or HistogramLogAnalyzer
+    @Value("${app.metrics.latency.log-file:}")
+    private String logFile;
+
+    private final Map<Method, MethodHistograms> methods = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService roller = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "method-latencies");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private HistogramLogWriter logWriter;
+    private LocalDateTime lastIntervalEnd;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!logFile.isBlank()) {
+            Path file = Path.of(logFile);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            long now = System.currentTimeMillis();
+            logWriter = new HistogramLogWriter(file.toFile());
+            logWriter.outputLogFormatVersion();
+            logWriter.outputStartTime(now);
+            logWriter.setBaseTime(now);
+            logWriter.outputLegend();
+        }
+        roller.scheduleAtFixedRate(this::rollInterval, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        roller.shutdownNow();
+        rollInterval();
+        if (logWriter != null) {
+            logWriter.close();
+        }
+    }
+
+    public void record(Method method, long nanos) {
+        MethodHistograms histograms = methods.get(method);
+        if (histograms == null) {
+            histograms = methods.computeIfAbsent(method,
+                    m -> new MethodHistograms(m.getDeclaringClass().getSimpleName() + "." + m.getName()));
+        }
+        histograms.recorder.recordValue(Math.min(nanos, HIGHEST_NANOS));
+    }
+
+    public synchronized void rollInterval() {
+        try {
+            for (MethodHistograms histograms : methods.values()) {
+                Histogram interval = histograms.recorder.getIntervalHistogram();
+                histograms.sinceStart.add(interval);
+                histograms.lastInterval = interval;
+                if (logWriter != null && interval.getTotalCount() > 0) {
+                    interval.setTag(histograms.name);
+                    logWriter.outputIntervalHistogram(interval);
+                }
+            }
+            lastIntervalEnd = LocalDateTime.now();
+        } catch (RuntimeException e) {
+            // keep the schedule running, the next interval will include these values
+            LOGGER.error("Could not roll the latency histograms", e);
+        }
+    }
+
+    public synchronized LatencyReport getStats() {
+        List<MethodLatencyStats> stats = new ArrayList<>(methods.size());
+        for (MethodHistograms histograms : methods.values()) {
+            stats.add(new MethodLatencyStats(
+                    histograms.name,
+                    LatencyStats.from(histograms.lastInterval),
+                    LatencyStats.from(histograms.sinceStart)));
+        }
+        stats.sort(Comparator.comparing(MethodLatencyStats::method));
+        return new LatencyReport(intervalMillis, lastIntervalEnd, stats);
+    }
+}
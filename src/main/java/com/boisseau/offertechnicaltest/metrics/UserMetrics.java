@@ -0,0 +1,52 @@
+package com.boisseau.offertechnicaltest.metrics;
+
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// Business counters, next to the HTTP, Hibernate and connection pool metrics of /actuator/prometheus:
+// users.registrations{channel}   users written, one at a time ("single") or through insertVerified ("batch")
+// users.rejections{rule}         failed UserRules rules, one per failing field of a refused user
+// users.phone.conflicts{source}  duplicate phone numbers, caught by the check ("check") or by the unique index ("constraint")
+@Component
+public class UserMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter singleRegistrations;
+    private final Counter batchRegistrations;
+    private final Counter phoneConflictsFromCheck;
+    private final Counter phoneConflictsFromConstraint;
+
+    public UserMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.singleRegistrations = meterRegistry.counter("users.registrations", "channel", "single");
+        this.batchRegistrations = meterRegistry.counter("users.registrations", "channel", "batch");
+        this.phoneConflictsFromCheck = meterRegistry.counter("users.phone.conflicts", "source", "check");
+        this.phoneConflictsFromConstraint = meterRegistry.counter("users.phone.conflicts", "source", "constraint");
+    }
+
+    public void recordRegistration() {
+        singleRegistrations.increment();
+    }
+
+    public void recordRegistrations(int count) {
+        batchRegistrations.increment(count);
+    }
+
+    // rule: the id of a UserRules rule, see Violation.rule()
+    public void recordRejection(String rule) {
+        meterRegistry.counter("users.rejections", "rule", rule).increment();
+        if (UserRules.PHONE_DUPLICATE.rule().equals(rule)) {
+            phoneConflictsFromCheck.increment();
+        }
+    }
+
+    // two registrations of one number racing past the check
+    public void recordConstraintViolation(String message) {
+        if (UserRepo.isPhoneKeyConflict(message)) {
+            phoneConflictsFromConstraint.increment();
+        }
+    }
+}
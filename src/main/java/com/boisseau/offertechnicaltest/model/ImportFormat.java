@@ -0,0 +1,17 @@
+package com.boisseau.offertechnicaltest.model;
+
+public enum ImportFormat {
+    CSV, NDJSON;
+
+    // from the file extension: .csv, .ndjson or .jsonl
+    public static ImportFormat of(String fileName) throws IllegalArgumentException {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".csv")) {
+            return CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Only .csv, .ndjson and .jsonl files can be imported.");
+    }
+}
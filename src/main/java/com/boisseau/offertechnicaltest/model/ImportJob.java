@@ -0,0 +1,37 @@
+package com.boisseau.offertechnicaltest.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One import of a partner file. linesRead is the checkpoint: every line up to it is committed,
+// together with the users and rejections it produced, so a resumed job starts right after it.
+@Entity
+@Data
+@Table(name = "import_jobs")
+@NoArgsConstructor
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+    @Column(nullable = false)
+    private String fileName;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportFormat format;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportStatus status;
+    private long linesRead;
+    // checkpoint the current run started from, for its rows per second
+    private long resumedFromLine;
+    private long createdCount;
+    private long rejectedCount;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    @Column(length = 1000)
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.boisseau.offertechnicaltest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Data
+@Table(name = "import_rejections", indexes = @Index(name = "idx_import_rejections_job_line", columnList = "jobId, lineNumber"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRejection {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_rejections_seq")
+    @SequenceGenerator(name = "import_rejections_seq", sequenceName = "import_rejections_seq", allocationSize = 50)
+    private long id;
+    private int jobId;
+    private long lineNumber;
+    @Column(length = 1000)
+    private String reason;
+}
@@ -0,0 +1,5 @@
+package com.boisseau.offertechnicaltest.model;
+
+public enum ImportStatus {
+    RUNNING, INTERRUPTED, FAILED, COMPLETED
+}
@@ -0,0 +1,5 @@
+package com.boisseau.offertechnicaltest.model;
+
+public enum RegistrationStatus {
+    PENDING, CREATED, REJECTED
+}
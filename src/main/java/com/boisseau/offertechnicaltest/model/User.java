@@ -1,6 +1,8 @@
 package com.boisseau.offertechnicaltest.model;
 
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -11,13 +13,20 @@ import java.time.LocalDate;
 
 @Entity
 @Data
-@Table(name = "users")
+// the schema, indexes included, is created by the scripts in db/migration, these only document it
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_phone_key", columnList = "phoneKey", unique = true),
+        @Index(name = "idx_users_name", columnList = "name, id"),
+        @Index(name = "idx_users_birthdate", columnList = "birthdate, id"),
+        @Index(name = "idx_users_registration_id", columnList = "registrationId", unique = true)
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private int id;
     @Column(nullable = false)
     private String name;
@@ -26,9 +35,25 @@ public class User {
     private LocalDate birthdate;
     @Column(nullable = false)
     private String countryOfResidence;
-    @Column(unique = true)
     private String phoneNumber;
+    // canonical E.164 digits of phoneNumber, the one used for uniqueness and lookups
+    private Long phoneKey;
     @Enumerated(EnumType.STRING)
     private Gender gender;
+    // tracking id of the write-behind registration that inserted the user, null otherwise
+    @JsonIgnore
+    private String registrationId;
+
+    @PrePersist
+    @PreUpdate
+    void normalizePhoneNumber() {
+        if (phoneNumber == null) {
+            phoneKey = null;
+        } else if (phoneKey == null) {
+            // the services set the key from the user's country, saves that bypass them get the French plan
+            long key = PhoneNumbers.toKey(phoneNumber);
+            phoneKey = key == PhoneNumbers.NO_KEY ? null : key;
+        }
+    }
 
 }
@@ -0,0 +1,9 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+public record DatabaseGateStats(
+        int permits,
+        int availablePermits,
+        int waitingThreads,
+        long admitted,
+        long rejected) {
+}
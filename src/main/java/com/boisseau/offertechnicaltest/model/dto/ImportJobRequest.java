@@ -0,0 +1,5 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+public record ImportJobRequest(
+        String fileName) {
+}
@@ -0,0 +1,49 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import com.boisseau.offertechnicaltest.model.ImportFormat;
+import com.boisseau.offertechnicaltest.model.ImportJob;
+import com.boisseau.offertechnicaltest.model.ImportStatus;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+public record ImportJobResponse(
+        int id,
+        String fileName,
+        ImportFormat format,
+        ImportStatus status,
+        long linesRead,
+        long created,
+        long rejected,
+        double rowsPerSecond,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error) {
+
+    // rows per second of the current or last run
+    public static ImportJobResponse from(ImportJob job) {
+        double rowsPerSecond = 0;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getStatus() == ImportStatus.RUNNING || job.getUpdatedAt() == null
+                    ? LocalDateTime.now()
+                    : job.getUpdatedAt();
+            long millis = Duration.between(job.getStartedAt(), end).toMillis();
+            if (millis > 0) {
+                rowsPerSecond = (job.getLinesRead() - job.getResumedFromLine()) * 1000.0 / millis;
+            }
+        }
+        return new ImportJobResponse(
+                job.getId(),
+                job.getFileName(),
+                job.getFormat(),
+                job.getStatus(),
+                job.getLinesRead(),
+                job.getCreatedCount(),
+                job.getRejectedCount(),
+                rowsPerSecond,
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getError()
+        );
+    }
+}
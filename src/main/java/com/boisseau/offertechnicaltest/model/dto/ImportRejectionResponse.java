@@ -0,0 +1,12 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import com.boisseau.offertechnicaltest.model.ImportRejection;
+
+public record ImportRejectionResponse(
+        long lineNumber,
+        String reason) {
+
+    public static ImportRejectionResponse from(ImportRejection rejection) {
+        return new ImportRejectionResponse(rejection.getLineNumber(), rejection.getReason());
+    }
+}
@@ -0,0 +1,10 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record LatencyReport(
+        long intervalMillis,
+        LocalDateTime lastIntervalEnd,
+        List<MethodLatencyStats> methods) {
+}
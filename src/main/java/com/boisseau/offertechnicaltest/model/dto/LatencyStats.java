@@ -0,0 +1,24 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import org.HdrHistogram.Histogram;
+
+// in microseconds
+public record LatencyStats(
+        long count,
+        double p50,
+        double p90,
+        double p99,
+        double p999,
+        double max) {
+
+    // histogram in nanoseconds
+    public static LatencyStats from(Histogram histogram) {
+        return new LatencyStats(
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(90) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0);
+    }
+}
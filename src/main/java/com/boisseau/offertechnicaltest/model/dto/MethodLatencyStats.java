@@ -0,0 +1,7 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+public record MethodLatencyStats(
+        String method,
+        LatencyStats lastInterval,
+        LatencyStats sinceStart) {
+}
@@ -0,0 +1,16 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+public record PhoneNumberFilterStats(
+        long expectedInsertions,
+        long insertions,
+        long bitCount,
+        int hashCount,
+        long memoryBytes,
+        double expectedFalsePositiveRate,
+        double observedFalsePositiveRate,
+        long queriesSkipped,
+        long queriesFallenThrough,
+        long falsePositives,
+        long rebuilds,
+        boolean rebuilding) {
+}
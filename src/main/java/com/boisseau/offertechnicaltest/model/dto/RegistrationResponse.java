@@ -0,0 +1,11 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import com.boisseau.offertechnicaltest.model.RegistrationStatus;
+
+// userId once CREATED, reason once REJECTED
+public record RegistrationResponse(
+        String trackingId,
+        RegistrationStatus status,
+        Integer userId,
+        String reason) {
+}
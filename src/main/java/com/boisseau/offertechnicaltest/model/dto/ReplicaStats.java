@@ -0,0 +1,9 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+// lagMillis: null until the replica answers a lag check
+public record ReplicaStats(
+        String pool,
+        String jdbcUrl,
+        boolean inRotation,
+        Long lagMillis) {
+}
@@ -0,0 +1,31 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import com.boisseau.offertechnicaltest.validation.Violation;
+
+import java.util.List;
+
+public record UserBatchItemResult(
+        int index,
+        Status status,
+        UserResponse user,
+        String reason,
+        List<Violation> violations) {
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    public static UserBatchItemResult created(int index, UserResponse user) {
+        return new UserBatchItemResult(index, Status.CREATED, user, null, null);
+    }
+
+    // a record that could not even be read
+    public static UserBatchItemResult rejected(int index, String reason) {
+        return new UserBatchItemResult(index, Status.REJECTED, null, reason, null);
+    }
+
+    public static UserBatchItemResult rejected(int index, ValidationResult result) {
+        return new UserBatchItemResult(index, Status.REJECTED, null, result.getMessage(), result.getViolations());
+    }
+}
@@ -0,0 +1,9 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import java.util.List;
+
+public record UserBatchResponse(
+        int created,
+        int rejected,
+        List<UserBatchItemResult> results) {
+}
@@ -0,0 +1,10 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+public record UserCacheStats(
+        long maximumSize,
+        long size,
+        long hitCount,
+        long missCount,
+        double hitRate,
+        long evictionCount) {
+}
@@ -0,0 +1,8 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import java.util.List;
+
+public record UserMultiGetResponse(
+        List<UserResponse> users,
+        List<Integer> missingIds) {
+}
@@ -0,0 +1,8 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+import java.util.List;
+
+public record UserPageResponse(
+        List<UserResponse> users,
+        String nextCursor) {
+}
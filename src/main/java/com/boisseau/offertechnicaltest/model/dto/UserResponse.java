@@ -1,6 +1,7 @@
 package com.boisseau.offertechnicaltest.model.dto;
 
 import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.User;
 
 import java.time.LocalDate;
 
@@ -11,4 +12,15 @@ public record UserResponse(
         String countryOfResidence,
         String phoneNumber,
         Gender gender) {
+
+    public static UserResponse from(User user) {
+        return new UserResponse(
+                user.getId(),
+                user.getName(),
+                user.getBirthdate(),
+                user.getCountryOfResidence(),
+                user.getPhoneNumber(),
+                user.getGender()
+        );
+    }
 }
@@ -0,0 +1,14 @@
+package com.boisseau.offertechnicaltest.model.dto;
+
+public record UserSnapshotResponse(
+        String fileName,
+        long users,
+        long bytes,
+        long durationMillis,
+        double rowsPerSecond) {
+
+    public static UserSnapshotResponse of(String fileName, long users, long bytes, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        return new UserSnapshotResponse(fileName, users, bytes, nanos / 1_000_000, nanos == 0 ? 0 : users * 1e9 / nanos);
+    }
+}
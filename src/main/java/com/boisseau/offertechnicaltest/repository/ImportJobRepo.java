@@ -0,0 +1,22 @@
+package com.boisseau.offertechnicaltest.repository;
+
+import com.boisseau.offertechnicaltest.model.ImportJob;
+import com.boisseau.offertechnicaltest.model.ImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepo extends JpaRepository<ImportJob, Integer> {
+    // not read-only like the inherited one: a job is polled right after it is written, on the primary
+    @Override
+    @Transactional
+    Optional<ImportJob> findById(Integer id);
+
+    List<ImportJob> findByStatus(ImportStatus status);
+
+    List<ImportJob> findAllByOrderByIdDesc();
+}
@@ -0,0 +1,13 @@
+package com.boisseau.offertechnicaltest.repository;
+
+import com.boisseau.offertechnicaltest.model.ImportRejection;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ImportRejectionRepo extends JpaRepository<ImportRejection, Long> {
+    List<ImportRejection> findByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(int jobId, long lineNumber, Limit limit);
+}
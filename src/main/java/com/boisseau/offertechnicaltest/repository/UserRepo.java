@@ -1,10 +1,62 @@
 package com.boisseau.offertechnicaltest.repository;
 
 import com.boisseau.offertechnicaltest.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// phone numbers are always looked up by their canonical key, see PhoneNumbers
 @Repository
 public interface UserRepo extends JpaRepository<User, Integer> {
-    boolean existsByPhoneNumber(String phoneNumber);
+
+    // a violation of the unique phone_key index names it in its message
+    static boolean isPhoneKeyConflict(String message) {
+        return message != null && message.toLowerCase(Locale.ROOT).contains("idx_users_phone_key");
+    }
+
+    boolean existsByPhoneKey(long phoneKey);
+
+    @Query("select u.phoneKey from User u where u.phoneKey in :phoneKeys")
+    List<Long> findExistingPhoneKeys(@Param("phoneKeys") Collection<Long> phoneKeys);
+
+    // users inserted by write-behind registrations, see UserWriteBehindService
+    List<User> findByRegistrationIdIn(Collection<String> registrationIds);
+
+    // keyset page: an index seek on the primary key, whatever the depth
+    List<User> findByIdGreaterThanOrderByIdAsc(int id, Limit limit);
+
+    // same pages for one name, read in order from idx_users_name, see UserQueryPlanTest
+    List<User> findByNameAndBirthdateBetweenAndIdGreaterThanOrderByIdAsc(String name, LocalDate bornFrom, LocalDate bornTo,
+                                                                         int id, Limit limit);
+
+    // keyset page in (birthdate, id) order, read in order from idx_users_birthdate: bornFrom is the birthdate of the
+    // last row seen when there is one, only the rows of that day up to its id are then read and skipped
+    @Query("select u from User u where u.birthdate between :bornFrom and :bornTo "
+            + "and (u.birthdate > :lastBirthdate or u.id > :lastId) order by u.birthdate, u.id")
+    List<User> findBirthdatePage(@Param("bornFrom") LocalDate bornFrom, @Param("bornTo") LocalDate bornTo,
+                                 @Param("lastBirthdate") LocalDate lastBirthdate, @Param("lastId") int lastId, Limit limit);
+
+    // forward-only cursor over the whole table, read-only entities; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderById();
+
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.phoneKey from User u where u.phoneKey is not null")
+    Stream<Long> streamAllPhoneKeys();
 }
@@ -0,0 +1,61 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+// UserGetDetailsService on R2DBC, through the same user and missing id caches.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserGetDetailsService {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    public Mono<UserResponse> getUserById(int id) {
+        return Mono.defer(() -> {
+            UserResponse cached = userResponseCache.getIfPresent(id);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            if (missingUserIdCache.isMissing(id)) {
+                return Mono.error(new UserNotFoundException("User not found with id: " + id + "."));
+            }
+            long stamp = missingUserIdCache.stamp();
+            return databaseClient.sql("SELECT id, name, birthdate, country_of_residence, phone_number, gender "
+                            + "FROM users WHERE id = :id")
+                    .bind("id", id)
+                    .map(row -> {
+                        String gender = row.get("gender", String.class);
+                        return new UserResponse(
+                                row.get("id", Integer.class),
+                                row.get("name", String.class),
+                                row.get("birthdate", LocalDate.class),
+                                row.get("country_of_residence", String.class),
+                                row.get("phone_number", String.class),
+                                gender == null ? null : Gender.valueOf(gender));
+                    })
+                    .one()
+                    .doOnNext(userResponseCache::put)
+                    .switchIfEmpty(Mono.error(() -> {
+                        missingUserIdCache.add(id, stamp);
+                        return new UserNotFoundException("User not found with id: " + id + ".");
+                    }));
+        });
+    }
+}
@@ -0,0 +1,151 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
+import com.boisseau.offertechnicaltest.exception.UserValidationException;
+import com.boisseau.offertechnicaltest.metrics.UserMetrics;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import com.boisseau.offertechnicaltest.validation.CountryTable;
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+// UserRegisterService on R2DBC: same UserRules, in the same order, with the same messages.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRegisterService {
+
+    // same block size as the pooled-lo generator of User.id, so both stacks can share users_seq
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private UserMetrics userMetrics;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private CountryRegistry countryRegistry;
+
+    private final Object idLock = new Object();
+    private long nextId;
+    private long idLimit;
+
+    public Mono<UserResponse> addUser(UserCreationRequest request) {
+
+        // field rules first, the database is only asked about valid requests
+        CountryTable countries = countryRegistry.getTable();
+        ValidationResult result = UserRules.validate(request, countries);
+        if (!result.isValid()) {
+            return Mono.error(new UserValidationException(result));
+        }
+
+        // same number whatever its format, NO_KEY when absent
+        long phoneKey = UserRules.phoneKey(request, countries);
+
+        return verifyPhoneNumberUnused(phoneKey)
+                .then(nextId())
+                .flatMap(id -> insert(id, request, phoneKey))
+                .doOnNext(response -> {
+                    userMetrics.recordRegistration();
+                    missingUserIdCache.created(response.id());
+                    replicaRouting.written(response.id());
+                    if (phoneKey != PhoneNumbers.NO_KEY) {
+                        phoneNumberFilter.add(phoneKey);
+                    }
+                    // recently registered users are the most read ones
+                    userResponseCache.put(response);
+                });
+    }
+
+    // only numbers the filter may have seen go to the database
+    private Mono<Void> verifyPhoneNumberUnused(long phoneKey) {
+        return Mono.defer(() -> {
+            if (phoneKey == PhoneNumbers.NO_KEY || !phoneNumberFilter.mightContain(phoneKey)) {
+                return Mono.empty();
+            }
+            return databaseClient.sql("SELECT COUNT(*) FROM users WHERE phone_key = :phoneKey")
+                    .bind("phoneKey", phoneKey)
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .flatMap(count -> {
+                        if (count > 0) {
+                            return Mono.error(new UserValidationException(ValidationResult.of(UserRules.PHONE_DUPLICATE)));
+                        }
+                        phoneNumberFilter.recordFalsePositive();
+                        return Mono.empty();
+                    });
+        });
+    }
+
+    // pooled-lo: one sequence call reserves ID_ALLOCATION_SIZE ids
+    private Mono<Integer> nextId() {
+        return Mono.defer(() -> {
+            synchronized (idLock) {
+                if (nextId < idLimit) {
+                    return Mono.just((int) nextId++);
+                }
+            }
+            return databaseClient.sql("SELECT NEXT VALUE FOR users_seq")
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(base -> {
+                        synchronized (idLock) {
+                            nextId = base + 1;
+                            idLimit = base + ID_ALLOCATION_SIZE;
+                        }
+                        return base.intValue();
+                    });
+        });
+    }
+
+    private Mono<UserResponse> insert(int id, UserCreationRequest request, long phoneKey) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(
+                        "INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+                                + "VALUES (:id, :name, :birthdate, :countryOfResidence, :phoneNumber, :phoneKey, :gender)")
+                .bind("id", id)
+                .bind("name", request.name())
+                .bind("birthdate", request.birthdate())
+                .bind("countryOfResidence", request.countryOfResidence());
+        insert = request.phoneNumber() == null
+                ? insert.bindNull("phoneNumber", String.class)
+                : insert.bind("phoneNumber", request.phoneNumber());
+        insert = phoneKey == PhoneNumbers.NO_KEY
+                ? insert.bindNull("phoneKey", Long.class)
+                : insert.bind("phoneKey", phoneKey);
+        insert = request.gender() == null
+                ? insert.bindNull("gender", String.class)
+                : insert.bind("gender", request.gender().name());
+
+        return insert.fetch()
+                .rowsUpdated()
+                .thenReturn(new UserResponse(
+                        id,
+                        request.name(),
+                        request.birthdate(),
+                        request.countryOfResidence(),
+                        request.phoneNumber(),
+                        request.gender()));
+    }
+}
@@ -0,0 +1,232 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.model.RegistrationStatus;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only file of write-behind registrations, one JSON entry per line: a PENDING entry with the request
+// when a registration is accepted, then a CREATED or REJECTED entry with the same tracking id once it is written.
+// Opening the journal replays it and rewrites it with only the pending registrations and the latest outcomes,
+// compactIfLargerThan() does the same while it is open.
+// Appends only write: sync() then waits for them to be on disk, one fsync covering every append made before it
+// (group commit), so concurrent registrations share the cost of a disk flush.
+public class RegistrationJournal implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationJournal.class);
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry(
+            String trackingId,
+            RegistrationStatus status,
+            UserCreationRequest request,
+            Integer userId,
+            String reason) {
+
+        public static Entry pending(String trackingId, UserCreationRequest request) {
+            return new Entry(trackingId, RegistrationStatus.PENDING, request, null, null);
+        }
+
+        public Entry created(int userId) {
+            return new Entry(trackingId, RegistrationStatus.CREATED, null, userId, null);
+        }
+
+        public Entry rejected(String reason) {
+            return new Entry(trackingId, RegistrationStatus.REJECTED, null, null, reason);
+        }
+    }
+
+    private record Contents(List<Entry> pending, List<Entry> outcomes, long size) {
+    }
+
+    private final Path file;
+    private final JsonMapper jsonMapper;
+    private final int retainedOutcomes;
+    private final boolean fsync;
+    private final List<Entry> pending;
+    private final List<Entry> outcomes;
+    // replaced by a compaction, under forceLock and this
+    private FileChannel channel;
+    // sizes of the file, now and after its last compaction, guarded by this
+    private long size;
+    private long compactedSize;
+    // bytes appended since the journal was opened, guarded by this
+    private long appended;
+    // bytes known to be on disk, only moves forward under forceLock
+    private volatile long durable;
+    private final Object forceLock = new Object();
+
+    private RegistrationJournal(Path file, JsonMapper jsonMapper, int retainedOutcomes, boolean fsync,
+                                Contents contents) throws IOException {
+        this.file = file;
+        this.jsonMapper = jsonMapper;
+        this.retainedOutcomes = retainedOutcomes;
+        this.fsync = fsync;
+        this.pending = contents.pending();
+        this.outcomes = contents.outcomes();
+        this.size = contents.size();
+        this.compactedSize = contents.size();
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // fsync: sync() forces the appends to disk, so an accepted registration survives a crash
+    public static RegistrationJournal open(Path file, JsonMapper jsonMapper, int retainedOutcomes, boolean fsync)
+            throws IOException {
+        if (!Files.exists(file) && file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        return new RegistrationJournal(file, jsonMapper, retainedOutcomes, fsync, compact(file, jsonMapper, retainedOutcomes));
+    }
+
+    // replays the file line by line, then replaces it in one move with the pending entries and the latest outcomes
+    private static Contents compact(Path file, JsonMapper jsonMapper, int retainedOutcomes) throws IOException {
+        Map<String, Entry> pending = new LinkedHashMap<>();
+        Deque<Entry> outcomes = new ArrayDeque<>();
+
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                int number = 0;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    number++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Entry entry;
+                    try {
+                        entry = jsonMapper.readValue(line, Entry.class);
+                    } catch (JacksonException e) {
+                        // a line cut short by a crash, its registration was never acknowledged
+                        LOGGER.warn("Skipping unreadable line {} of {}", number, file);
+                        continue;
+                    }
+                    if (entry.status() == RegistrationStatus.PENDING) {
+                        pending.put(entry.trackingId(), entry);
+                    } else {
+                        pending.remove(entry.trackingId());
+                        outcomes.addLast(entry);
+                        if (outcomes.size() > retainedOutcomes) {
+                            outcomes.removeFirst();
+                        }
+                    }
+                }
+            }
+        }
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+        long size;
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            size = write(out, jsonMapper, outcomes);
+            size += write(out, jsonMapper, pending.values());
+            out.force(true);
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Contents(new ArrayList<>(pending.values()), new ArrayList<>(outcomes), size);
+    }
+
+    private static int write(FileChannel channel, JsonMapper jsonMapper, Collection<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries) {
+            lines.append(jsonMapper.writeValueAsString(entry)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return length;
+    }
+
+    // registrations accepted but not written when the journal was opened, in acceptance order
+    public List<Entry> getPending() {
+        return pending;
+    }
+
+    // latest outcomes found when the journal was opened, oldest first
+    public List<Entry> getOutcomes() {
+        return outcomes;
+    }
+
+    // written but not yet forced to disk: returns the position to give sync()
+    public synchronized long append(Entry entry) throws IOException {
+        return appendAll(List.of(entry));
+    }
+
+    public synchronized long appendAll(Collection<Entry> entries) throws IOException {
+        int length = write(channel, jsonMapper, entries);
+        size += length;
+        appended += length;
+        return appended;
+    }
+
+    // returns once everything appended up to position is on disk. The callers queue on forceLock, the first one
+    // forces whatever has been appended so far, and the ones behind it usually find their entries already there.
+    public void sync(long position) throws IOException {
+        if (!fsync || durable >= position) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durable >= position) {
+                return;
+            }
+            long upTo;
+            synchronized (this) {
+                upTo = appended;
+            }
+            channel.force(false);
+            durable = upTo;
+        }
+    }
+
+    // Compacts the journal once it is larger than maxBytes, and than twice its last compaction so that many
+    // retained outcomes do not get it rewritten after every append. Appends and syncs wait meanwhile; everything
+    // appended so far is on disk afterwards.
+    public void compactIfLargerThan(long maxBytes) throws IOException {
+        synchronized (forceLock) {
+            synchronized (this) {
+                if (size <= maxBytes || size <= 2 * compactedSize) {
+                    return;
+                }
+                size = compact(file, jsonMapper, retainedOutcomes).size();
+                compactedSize = size;
+                channel.close();
+                channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                durable = appended;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            synchronized (this) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
+import com.boisseau.offertechnicaltest.metrics.UserMetrics;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchItemResult;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.validation.Country;
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import com.boisseau.offertechnicaltest.validation.CountryTable;
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import com.boisseau.offertechnicaltest.validation.Violation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class UserBatchRegisterService {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Autowired
+    private UserMetrics userMetrics;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private CountryRegistry countryRegistry;
+
+    @Value("${app.users.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Transactional
+    public UserBatchResponse addUsers(List<UserCreationRequest> requests) throws IllegalArgumentException {
+
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("The batch must contain at least one user.");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + maxBatchSize + " users.");
+        }
+
+        UserBatchItemResult[] results = new UserBatchItemResult[requests.size()];
+
+        // field rules first, a rejected item never reaches the database
+        for (int i = 0; i < requests.size(); i++) {
+            results[i] = verify(i, requests.get(i));
+        }
+
+        return insertVerified(requests, results);
+    }
+
+    // the field rules of UserRules, without database access:
+    // the rejection of the item with every failing field, or null when it is valid
+    public UserBatchItemResult verify(int index, UserCreationRequest request) {
+        ValidationResult result = UserRules.validate(request, countryRegistry.getTable());
+        if (result.isValid()) {
+            return null;
+        }
+        for (Violation violation : result.getViolations()) {
+            userMetrics.recordRejection(violation.rule());
+        }
+        return UserBatchItemResult.rejected(index, result);
+    }
+
+    // Inserts the items verify() accepted (a null result) once their phone numbers are checked against
+    // the database and the rest of the list, and fills in their results. Must run inside a transaction.
+    public UserBatchResponse insertVerified(List<UserCreationRequest> requests, UserBatchItemResult[] results) {
+        return insertVerified(requests, results, null);
+    }
+
+    // registrationIds: the write-behind tracking id of each request, stored with its user, or null
+    public UserBatchResponse insertVerified(List<UserCreationRequest> requests, UserBatchItemResult[] results,
+                                            List<String> registrationIds) {
+
+        CountryTable countries = countryRegistry.getTable();
+        long[] phoneKeys = new long[requests.size()];
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        Set<Long> keysToCheck = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            UserCreationRequest request = requests.get(i);
+            Country country = countries.resolveOrDefault(request.countryOfResidence());
+            phoneKeys[i] = UserRules.phoneKey(request.phoneNumber(), country);
+            // the country table was reloaded with another plan since verify()
+            if (request.phoneNumber() != null && phoneKeys[i] == PhoneNumbers.NO_KEY) {
+                Violation violation = UserRules.checkPhoneNumber(request.phoneNumber(), country);
+                results[i] = UserBatchItemResult.rejected(i, ValidationResult.of(violation));
+                userMetrics.recordRejection(violation.rule());
+                continue;
+            }
+            validIndexes.add(i);
+            if (phoneKeys[i] != PhoneNumbers.NO_KEY && phoneNumberFilter.mightContain(phoneKeys[i])) {
+                keysToCheck.add(phoneKeys[i]);
+            }
+        }
+
+        // one set-based query for the numbers the filter may have seen, then duplicates inside the batch itself
+        Set<Long> usedKeys = keysToCheck.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(userRepo.findExistingPhoneKeys(keysToCheck));
+        for (Long key : keysToCheck) {
+            if (!usedKeys.contains(key)) {
+                phoneNumberFilter.recordFalsePositive();
+            }
+        }
+
+        List<User> users = new ArrayList<>(validIndexes.size());
+        List<Integer> userIndexes = new ArrayList<>(validIndexes.size());
+        for (int i : validIndexes) {
+            UserCreationRequest request = requests.get(i);
+            if (phoneKeys[i] != PhoneNumbers.NO_KEY && !usedKeys.add(phoneKeys[i])) {
+                results[i] = UserBatchItemResult.rejected(i, ValidationResult.of(UserRules.PHONE_DUPLICATE));
+                userMetrics.recordRejection(UserRules.PHONE_DUPLICATE.rule());
+                continue;
+            }
+
+            User user = new User();
+            user.setName(request.name());
+            user.setBirthdate(request.birthdate());
+            user.setCountryOfResidence(request.countryOfResidence());
+            user.setPhoneNumber(request.phoneNumber());
+            user.setGender(request.gender());
+            if (phoneKeys[i] != PhoneNumbers.NO_KEY) {
+                user.setPhoneKey(phoneKeys[i]);
+            }
+            if (registrationIds != null) {
+                user.setRegistrationId(registrationIds.get(i));
+            }
+            users.add(user);
+            userIndexes.add(i);
+        }
+
+        // inserts are grouped by hibernate.jdbc.batch_size
+        List<User> saved = userRepo.saveAll(users);
+        userMetrics.recordRegistrations(saved.size());
+        List<Integer> savedIds = new ArrayList<>(saved.size());
+        List<Long> savedKeys = new ArrayList<>(saved.size());
+        for (int k = 0; k < saved.size(); k++) {
+            savedIds.add(saved.get(k).getId());
+            int i = userIndexes.get(k);
+            results[i] = UserBatchItemResult.created(i, UserResponse.from(saved.get(k)));
+            if (phoneKeys[i] != PhoneNumbers.NO_KEY) {
+                savedKeys.add(phoneKeys[i]);
+            }
+        }
+
+        phoneNumberFilter.addAll(savedKeys);
+        missingUserIdCache.created(savedIds);
+        replicaRouting.written(savedIds);
+
+        return new UserBatchResponse(saved.size(), requests.size() - saved.size(), Arrays.asList(results));
+    }
+}
@@ -0,0 +1,49 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Every user as newline-delimited JSON, one UserResponse per line, in id order.
+// Rows are read from a forward-only cursor and detached once written, so the export holds
+// one fetch of rows at a time whatever the size of the table.
+@Service
+public class UserExportService {
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    // returns the number of users written
+    @Transactional(readOnly = true)
+    public long exportTo(OutputStream out) {
+        long count = 0;
+        try (Stream<User> users = userRepo.streamAllOrderById();
+             JsonGenerator generator = jsonMapper.createGenerator(out)) {
+            Iterator<User> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                generator.writePOJO(UserResponse.from(user));
+                generator.writeRaw('\n');
+                entityManager.detach(user);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,28 +1,156 @@
 package com.boisseau.offertechnicaltest.service;
 
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
 import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
 import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserMultiGetResponse;
 import com.boisseau.offertechnicaltest.model.dto.UserResponse;
 import com.boisseau.offertechnicaltest.repository.UserRepo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
 @Service
 public class UserGetDetailsService {
 
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Value("${app.users.multi-get.max-ids:10000}")
+    private int maxIds;
+
+    @Value("${app.users.multi-get.chunk-size:500}")
+    private int chunkSize;
+
     public UserResponse getUserById(int id) {
-        User user = userRepo.findById(id).orElseThrow(() -> new UserNotFoundException("User not found with id: " + id +"."));
-
-        return new UserResponse(
-                user.getId(),
-                user.getName(),
-                user.getBirthdate(),
-                user.getCountryOfResidence(),
-                user.getPhoneNumber(),
-                user.getGender()
-        );
+        return userResponseCache.get(id, this::loadUser);
+    }
+
+    // unknown ids are listed in missingIds instead of failing the call
+    // not one transaction: each chunk is its own read-only one, so that ids a replica does not have can be read
+    // again on the primary
+    public UserMultiGetResponse getUsersByIds(List<Integer> ids) throws IllegalArgumentException {
+
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required.");
+        }
+
+        // a repeated id is answered once, in the order of its first occurrence
+        Set<Integer> uniqueIds = new LinkedHashSet<>(ids);
+        if (uniqueIds.contains(null)) {
+            throw new IllegalArgumentException("Ids cannot be null.");
+        }
+        if (uniqueIds.size() > maxIds) {
+            throw new IllegalArgumentException("Cannot fetch more than " + maxIds + " users at once.");
+        }
+
+        // ids known to be missing are not queried again
+        Set<Integer> idsToFind = new LinkedHashSet<>(uniqueIds.size());
+        for (Integer id : uniqueIds) {
+            if (!missingUserIdCache.isMissing(id)) {
+                idsToFind.add(id);
+            }
+        }
+        long stamp = missingUserIdCache.stamp();
+        Map<Integer, UserResponse> found = idsToFind.isEmpty() ? Map.of() : userResponseCache.getAll(idsToFind, this::loadUsers);
+
+        List<UserResponse> users = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        List<Integer> newlyMissingIds = new ArrayList<>();
+        for (Integer id : uniqueIds) {
+            UserResponse user = found.get(id);
+            if (user == null) {
+                missingIds.add(id);
+                if (idsToFind.contains(id)) {
+                    newlyMissingIds.add(id);
+                }
+            } else {
+                users.add(user);
+            }
+        }
+        missingUserIdCache.addAll(newlyMissingIds, stamp);
+        return new UserMultiGetResponse(users, missingIds);
+    }
+
+    // ids found missing are remembered for a while, answered without a query
+    private UserResponse loadUser(int id) {
+        if (missingUserIdCache.isMissing(id)) {
+            throw new UserNotFoundException("User not found with id: " + id + ".");
+        }
+        long stamp = missingUserIdCache.stamp();
+        Optional<User> user = findById(id);
+        if (user.isEmpty()) {
+            missingUserIdCache.add(id, stamp);
+            throw new UserNotFoundException("User not found with id: " + id + ".");
+        }
+
+        return UserResponse.from(user.get());
+    }
+
+    // on a replica, unless this instance saved the user too recently for the replicas to have it; only the
+    // primary can tell that an id does not exist, a replica may just not have it yet
+    private Optional<User> findById(int id) {
+        if (replicaRouting.isRecentlyWritten(id)) {
+            return replicaRouting.onPrimary(ReplicaRouting.RECENT_WRITE, () -> userRepo.findById(id));
+        }
+        Optional<User> user = userRepo.findById(id);
+        if (user.isEmpty() && replicaRouting.hasReplicas()) {
+            return replicaRouting.onPrimary(ReplicaRouting.NOT_FOUND, () -> userRepo.findById(id));
+        }
+        return user;
+    }
+
+    // only the ids missing from the cache, the same way as findById()
+    private Map<Integer, UserResponse> loadUsers(Set<? extends Integer> ids) {
+        List<Integer> fromReplica = new ArrayList<>(ids.size());
+        List<Integer> recentlyWritten = new ArrayList<>();
+        for (Integer id : ids) {
+            (replicaRouting.isRecentlyWritten(id) ? recentlyWritten : fromReplica).add(id);
+        }
+        Map<Integer, UserResponse> users = findAllById(fromReplica);
+        if (!recentlyWritten.isEmpty()) {
+            users.putAll(replicaRouting.onPrimary(ReplicaRouting.RECENT_WRITE, () -> findAllById(recentlyWritten)));
+        }
+        if (users.size() < ids.size() && replicaRouting.hasReplicas()) {
+            List<Integer> notFound = new ArrayList<>();
+            for (Integer id : fromReplica) {
+                if (!users.containsKey(id)) {
+                    notFound.add(id);
+                }
+            }
+            users.putAll(replicaRouting.onPrimary(ReplicaRouting.NOT_FOUND, () -> findAllById(notFound)));
+        }
+        return users;
+    }
+
+    // one IN query per chunk so that a long list stays under the database limits on bind parameters
+    private Map<Integer, UserResponse> findAllById(List<Integer> ids) {
+        Map<Integer, UserResponse> users = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            for (User user : userRepo.findAllById(chunk)) {
+                users.put(user.getId(), UserResponse.from(user));
+            }
+        }
+        return users;
     }
 }
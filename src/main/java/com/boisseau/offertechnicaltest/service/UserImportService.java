@@ -0,0 +1,390 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.exception.ImportJobNotFoundException;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.ImportFormat;
+import com.boisseau.offertechnicaltest.model.ImportJob;
+import com.boisseau.offertechnicaltest.model.ImportRejection;
+import com.boisseau.offertechnicaltest.model.ImportStatus;
+import com.boisseau.offertechnicaltest.model.dto.ImportJobResponse;
+import com.boisseau.offertechnicaltest.model.dto.ImportRejectionResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchItemResult;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.ImportJobRepo;
+import com.boisseau.offertechnicaltest.repository.ImportRejectionRepo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Imports partner files (CSV with a header line, or one JSON user per line) from app.users.import.directory.
+// The file is read in chunks of app.users.import.chunk-size lines. Chunks are parsed and verified in parallel,
+// then inserted one after the other in file order, each in its own transaction together with its rejections
+// and the job checkpoint: an interrupted job resumes from the last committed chunk.
+@Service
+public class UserImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "birthdate", "countryOfResidence", "phoneNumber", "gender");
+
+    @Autowired
+    private ImportJobRepo importJobRepo;
+
+    @Autowired
+    private ImportRejectionRepo importRejectionRepo;
+
+    @Autowired
+    private UserBatchRegisterService userBatchRegisterService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${app.users.import.directory:imports}")
+    private Path directory;
+
+    @Value("${app.users.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // chunks verified ahead of the one being inserted
+    @Value("${app.users.import.chunks-ahead:4}")
+    private int chunksAhead;
+
+    private final ExecutorService runner = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "user-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // jobs running in this process
+    private final Set<Integer> running = ConcurrentHashMap.newKeySet();
+
+    // lines of a chunk, then what parsing and verifying them gave
+    private static final class Chunk {
+        final long firstLine;
+        final List<String> lines = new ArrayList<>();
+        final List<Long> lineNumbers = new ArrayList<>();
+        long lastLine;
+        List<UserCreationRequest> requests;
+        UserBatchItemResult[] results;
+
+        Chunk(long firstLine) {
+            this.firstLine = firstLine;
+            this.lastLine = firstLine - 1;
+        }
+    }
+
+    // a job still RUNNING at startup was stopped with the previous process
+    @PostConstruct
+    public void markInterruptedJobs() {
+        for (ImportJob job : importJobRepo.findByStatus(ImportStatus.RUNNING)) {
+            job.setStatus(ImportStatus.INTERRUPTED);
+            importJobRepo.save(job);
+            LOGGER.info("Import job {} was interrupted at line {}, it can be resumed", job.getId(), job.getLinesRead());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+    }
+
+    public ImportJobResponse startImport(String fileName) throws IllegalArgumentException {
+        Path file = resolve(fileName);
+
+        ImportJob job = new ImportJob();
+        job.setFileName(fileName);
+        job.setFormat(ImportFormat.of(fileName));
+        job.setStatus(ImportStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        ImportJob saved = importJobRepo.save(job);
+
+        running.add(saved.getId());
+        runner.execute(() -> run(saved.getId(), file));
+        return ImportJobResponse.from(saved);
+    }
+
+    public ImportJobResponse resumeImport(int id) throws IllegalArgumentException {
+        ImportJob job = findJob(id);
+        if (job.getStatus() == ImportStatus.COMPLETED) {
+            throw new IllegalArgumentException("Import job " + id + " is already completed.");
+        }
+        if (!running.add(id)) {
+            throw new IllegalArgumentException("Import job " + id + " is already running.");
+        }
+        Path file;
+        try {
+            file = resolve(job.getFileName());
+        } catch (IllegalArgumentException e) {
+            running.remove(id);
+            throw e;
+        }
+
+        job.setStatus(ImportStatus.RUNNING);
+        job.setResumedFromLine(job.getLinesRead());
+        job.setStartedAt(LocalDateTime.now());
+        job.setFinishedAt(null);
+        job.setError(null);
+        ImportJob saved = importJobRepo.save(job);
+
+        runner.execute(() -> run(id, file));
+        return ImportJobResponse.from(saved);
+    }
+
+    public ImportJobResponse getImport(int id) {
+        return ImportJobResponse.from(findJob(id));
+    }
+
+    public List<ImportJobResponse> getImports() {
+        return importJobRepo.findAllByOrderByIdDesc().stream().map(ImportJobResponse::from).toList();
+    }
+
+    // rejected lines in file order, size at a time after a line number
+    public List<ImportRejectionResponse> getRejections(int id, long afterLine, int size) throws IllegalArgumentException {
+        findJob(id);
+        if (size < 1 || size > 1000) {
+            throw new IllegalArgumentException("Page size must be between 1 and 1000.");
+        }
+        return importRejectionRepo.findByJobIdAndLineNumberGreaterThanOrderByLineNumberAsc(id, afterLine, Limit.of(size))
+                .stream()
+                .map(ImportRejectionResponse::from)
+                .toList();
+    }
+
+    private ImportJob findJob(int id) {
+        return importJobRepo.findById(id)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import job not found with id: " + id + "."));
+    }
+
+    // only files of the import directory, whatever the name says
+    private Path resolve(String fileName) throws IllegalArgumentException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required.");
+        }
+        Path root = directory.toAbsolutePath().normalize();
+        Path file = root.resolve(fileName).normalize();
+        if (!root.equals(file.getParent())) {
+            throw new IllegalArgumentException("File name must be the name of a file of the import directory.");
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("File not found: " + fileName + ".");
+        }
+        return file;
+    }
+
+    private void run(int id, Path file) {
+        ImportJob job = findJob(id);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            int[] columns = null;
+            if (job.getFormat() == ImportFormat.CSV) {
+                columns = csvColumns(reader.readLine());
+                lineNumber++;
+            }
+            // everything up to the checkpoint is already committed
+            while (lineNumber < job.getLinesRead() && reader.readLine() != null) {
+                lineNumber++;
+            }
+
+            Deque<CompletableFuture<Chunk>> verifying = new ArrayDeque<>();
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                if (Thread.currentThread().isInterrupted()) {
+                    finish(id, ImportStatus.INTERRUPTED, null);
+                    return;
+                }
+                Chunk chunk = new Chunk(lineNumber + 1);
+                String line;
+                while (chunk.lines.size() < chunkSize && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    chunk.lastLine = lineNumber;
+                    if (!line.isBlank()) {
+                        chunk.lines.add(line);
+                        chunk.lineNumbers.add(lineNumber);
+                    }
+                }
+                endOfFile = chunk.lines.size() < chunkSize;
+                if (chunk.lastLine >= chunk.firstLine) {
+                    int[] csvColumns = columns;
+                    verifying.add(CompletableFuture.supplyAsync(() -> verify(chunk, job.getFormat(), csvColumns)));
+                }
+                // inserts stay in file order, a few chunks behind the verification
+                while (verifying.size() > chunksAhead || (endOfFile && !verifying.isEmpty())) {
+                    insert(id, verifying.poll().join());
+                }
+            }
+            finish(id, ImportStatus.COMPLETED, null);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Import job {} failed", id, e);
+            finish(id, ImportStatus.FAILED, e.getMessage());
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    private Chunk verify(Chunk chunk, ImportFormat format, int[] csvColumns) {
+        int size = chunk.lines.size();
+        chunk.requests = new ArrayList<>(size);
+        chunk.results = new UserBatchItemResult[size];
+        for (int i = 0; i < size; i++) {
+            UserCreationRequest request = null;
+            try {
+                request = format == ImportFormat.CSV
+                        ? parseCsv(chunk.lines.get(i), csvColumns)
+                        : jsonMapper.readValue(chunk.lines.get(i), UserCreationRequest.class);
+            } catch (IllegalArgumentException | JacksonException e) {
+                chunk.results[i] = UserBatchItemResult.rejected(i, "Invalid record: " + e.getMessage());
+            }
+            chunk.requests.add(request);
+            if (chunk.results[i] == null) {
+                chunk.results[i] = userBatchRegisterService.verify(i, request);
+            }
+        }
+        return chunk;
+    }
+
+    // users, rejections and checkpoint of a chunk are committed together
+    private void insert(int id, Chunk chunk) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            UserBatchResponse response = userBatchRegisterService.insertVerified(chunk.requests, chunk.results);
+
+            List<ImportRejection> rejections = new ArrayList<>();
+            for (UserBatchItemResult result : response.results()) {
+                if (result.status() == UserBatchItemResult.Status.REJECTED) {
+                    rejections.add(new ImportRejection(0, id, chunk.lineNumbers.get(result.index()), result.reason()));
+                }
+            }
+            importRejectionRepo.saveAll(rejections);
+
+            ImportJob job = findJob(id);
+            job.setLinesRead(chunk.lastLine);
+            job.setCreatedCount(job.getCreatedCount() + response.created());
+            job.setRejectedCount(job.getRejectedCount() + response.rejected());
+            job.setUpdatedAt(LocalDateTime.now());
+            importJobRepo.save(job);
+        });
+    }
+
+    private void finish(int id, ImportStatus status, String error) {
+        ImportJob job = findJob(id);
+        job.setStatus(status);
+        job.setUpdatedAt(LocalDateTime.now());
+        if (status != ImportStatus.INTERRUPTED) {
+            job.setFinishedAt(job.getUpdatedAt());
+        }
+        job.setError(error);
+        importJobRepo.save(job);
+        LOGGER.info("Import job {} {} at line {}: {} created, {} rejected",
+                id, status, job.getLinesRead(), job.getCreatedCount(), job.getRejectedCount());
+    }
+
+    // position of each known column in the header, -1 when absent
+    static int[] csvColumns(String header) throws IOException {
+        if (header == null) {
+            throw new IOException("The file is empty, a header line is expected.");
+        }
+        List<String> names = splitCsvLine(header);
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = names.indexOf(CSV_COLUMNS.get(c));
+        }
+        if (columns[0] < 0) {
+            throw new IOException("The header line has no name column.");
+        }
+        return columns;
+    }
+
+    static UserCreationRequest parseCsv(String line, int[] columns) throws IllegalArgumentException {
+        List<String> fields = splitCsvLine(line);
+        Map<String, String> values = new HashMap<>();
+        for (int c = 0; c < columns.length; c++) {
+            if (columns[c] >= 0 && columns[c] < fields.size() && !fields.get(columns[c]).isEmpty()) {
+                values.put(CSV_COLUMNS.get(c), fields.get(columns[c]));
+            }
+        }
+        LocalDate birthdate;
+        try {
+            birthdate = values.containsKey("birthdate") ? LocalDate.parse(values.get("birthdate")) : null;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("birthdate must be yyyy-MM-dd.");
+        }
+        Gender gender;
+        try {
+            gender = values.containsKey("gender") ? Gender.valueOf(values.get("gender").toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("gender must be Male, Female or Other.");
+        }
+        return new UserCreationRequest(
+                values.get("name"),
+                birthdate,
+                values.get("countryOfResidence"),
+                values.get("phoneNumber"),
+                gender);
+    }
+
+    // RFC 4180 fields on one line: commas inside double quotes, "" for a quote
+    static List<String> splitCsvLine(String line) throws IllegalArgumentException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unclosed quote.");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,142 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserPageResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Users in id order, one page at a time. A page starts right after the last id of the previous one
+// (keyset pagination), so page 10000 costs the same index seek as page 1.
+// The list can be narrowed to a name and to a birthdate range, each looked up through its own index. Narrowed to a
+// birthdate range only, it is in (birthdate, id) order, the order of idx_users_birthdate, and the cursor holds both.
+@Service
+public class UserListService {
+
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String BIRTHDATE_CURSOR_PREFIX = "birthdate:";
+    private static final LocalDate FIRST_BIRTHDATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_BIRTHDATE = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Value("${app.users.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${app.users.page.max-size:1000}")
+    private int maxPageSize;
+
+    // cursor is null for the first page, size is null for the default size
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsers(String cursor, Integer size) throws IllegalArgumentException {
+        return getUsers(cursor, size, null, null, null);
+    }
+
+    // name, bornFrom and bornTo are optional; a cursor must be passed back with the filters it was read with
+    @Transactional(readOnly = true)
+    public UserPageResponse getUsers(String cursor, Integer size, String name, LocalDate bornFrom, LocalDate bornTo)
+            throws IllegalArgumentException {
+
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize + ".");
+        }
+        if (bornFrom != null && bornTo != null && bornFrom.isAfter(bornTo)) {
+            throw new IllegalArgumentException("bornFrom must not be after bornTo.");
+        }
+        boolean firstPage = cursor == null || cursor.isEmpty();
+        LocalDate from = bornFrom == null ? FIRST_BIRTHDATE : bornFrom;
+        LocalDate to = bornTo == null ? LAST_BIRTHDATE : bornTo;
+
+        // one extra row tells whether there is a next page, the last page never needs an empty request
+        Limit limit = Limit.of(pageSize + 1);
+        boolean byBirthdate = name == null && (bornFrom != null || bornTo != null);
+        List<User> rows;
+        if (byBirthdate) {
+            BirthdateCursor last = firstPage ? new BirthdateCursor(from, Integer.MIN_VALUE) : decodeBirthdateCursor(cursor);
+            LocalDate start = last.birthdate().isAfter(from) ? last.birthdate() : from;
+            rows = userRepo.findBirthdatePage(start, to, last.birthdate(), last.id(), limit);
+        } else {
+            int lastSeenId = firstPage ? Integer.MIN_VALUE : decodeCursor(cursor);
+            if (name != null) {
+                rows = userRepo.findByNameAndBirthdateBetweenAndIdGreaterThanOrderByIdAsc(name, from, to, lastSeenId, limit);
+            } else {
+                rows = userRepo.findByIdGreaterThanOrderByIdAsc(lastSeenId, limit);
+            }
+        }
+        boolean hasNext = rows.size() > pageSize;
+
+        List<UserResponse> users = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            users.add(UserResponse.from(rows.get(i)));
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            UserResponse last = users.get(pageSize - 1);
+            nextCursor = byBirthdate ? encodeBirthdateCursor(last.birthdate(), last.id()) : encodeCursor(last.id());
+        }
+        return new UserPageResponse(users, nextCursor);
+    }
+
+    record BirthdateCursor(LocalDate birthdate, int id) {
+    }
+
+    // opaque to clients, so the paging key can change without breaking them
+    static String encodeCursor(int lastSeenId) {
+        return encode(CURSOR_PREFIX + lastSeenId);
+    }
+
+    static int decodeCursor(String cursor) {
+        String decoded = decode(cursor, CURSOR_PREFIX);
+        try {
+            return Integer.parseInt(decoded);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    static String encodeBirthdateCursor(LocalDate lastSeenBirthdate, int lastSeenId) {
+        return encode(BIRTHDATE_CURSOR_PREFIX + lastSeenBirthdate + ":" + lastSeenId);
+    }
+
+    static BirthdateCursor decodeBirthdateCursor(String cursor) {
+        String decoded = decode(cursor, BIRTHDATE_CURSOR_PREFIX);
+        int separator = decoded.lastIndexOf(':');
+        try {
+            return new BirthdateCursor(LocalDate.parse(decoded.substring(0, Math.max(separator, 0))),
+                    Integer.parseInt(decoded.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    private static String encode(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // what follows the prefix, a cursor of another kind of page is invalid
+    private static String decode(String cursor, String prefix) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        if (!decoded.startsWith(prefix)) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+        return decoded.substring(prefix.length());
+    }
+}
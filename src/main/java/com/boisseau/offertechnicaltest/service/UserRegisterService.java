@@ -1,14 +1,25 @@
 package com.boisseau.offertechnicaltest.service;
 
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
+import com.boisseau.offertechnicaltest.exception.UserValidationException;
+import com.boisseau.offertechnicaltest.metrics.UserMetrics;
 import com.boisseau.offertechnicaltest.model.User;
 import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
 import com.boisseau.offertechnicaltest.model.dto.UserResponse;
 import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import com.boisseau.offertechnicaltest.validation.CountryTable;
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import com.boisseau.offertechnicaltest.validation.Violation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.Period;
 
 @Service
 public class UserRegisterService {
@@ -16,16 +27,43 @@ public class UserRegisterService {
     @Autowired
     private UserRepo userRepo;
 
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private UserMetrics userMetrics;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private CountryRegistry countryRegistry;
+
     public UserResponse addUser(UserCreationRequest request) throws IllegalArgumentException {
 
-        if (!(request.phoneNumber() == null) && userRepo.existsByPhoneNumber(request.phoneNumber())){
-            throw new IllegalArgumentException("This number is already used.");
+        // field rules first, all of them, without an exception per rule
+        CountryTable countries = countryRegistry.getTable();
+        ValidationResult result = UserRules.validate(request, countries);
+        if (!result.isValid()) {
+            throw new UserValidationException(result);
         }
 
-        verifyUserName(request.name());
-        verifyUserBirthdate(request.birthdate());
-        verifyUserCountryOfResidence(request.countryOfResidence());
-        verifyUserPhoneNumber(request.phoneNumber());
+        // same number whatever its format, NO_KEY when absent
+        long phoneKey = UserRules.phoneKey(request, countries);
+
+        // the database rule last, and only for numbers the filter may have seen
+        if (phoneKey != PhoneNumbers.NO_KEY && phoneNumberFilter.mightContain(phoneKey)){
+            if (userRepo.existsByPhoneKey(phoneKey)) {
+                throw new UserValidationException(ValidationResult.of(UserRules.PHONE_DUPLICATE));
+            }
+            phoneNumberFilter.recordFalsePositive();
+        }
 
         User user = new User();
         user.setName(request.name());
@@ -33,51 +71,47 @@ public class UserRegisterService {
         user.setCountryOfResidence(request.countryOfResidence());
         user.setPhoneNumber(request.phoneNumber());
         user.setGender(request.gender());
+        if (phoneKey != PhoneNumbers.NO_KEY) {
+            user.setPhoneKey(phoneKey);
+        }
 
         User saved = userRepo.save(user);
+        userMetrics.recordRegistration();
+        missingUserIdCache.created(saved.getId());
+        replicaRouting.written(saved.getId());
+        if (phoneKey != PhoneNumbers.NO_KEY) {
+            phoneNumberFilter.add(phoneKey);
+        }
 
-        return new UserResponse(
-                saved.getId(),
-                saved.getName(),
-                saved.getBirthdate(),
-                saved.getCountryOfResidence(),
-                saved.getPhoneNumber(),
-                saved.getGender()
-        );
+        // recently registered users are the most read ones
+        UserResponse response = UserResponse.from(saved);
+        userResponseCache.put(response);
+        return response;
     }
 
 
+    // single rules of UserRules, throwing the first violation; the phone number and birthdate
+    // rules of the default country, the first allowed one
+
     public void verifyUserName(String name) throws IllegalArgumentException {
-        if (name == null || name.isBlank()){
-            throw new IllegalArgumentException("Name is required.");
-        }
+        throwIfPresent(UserRules.check(UserRules.NAME, name));
     }
 
     public void verifyUserCountryOfResidence(String countryOfResidence) throws IllegalArgumentException {
-        if (countryOfResidence == null || countryOfResidence.isBlank()){
-            throw new IllegalArgumentException("Country of residence is required.");
-        }
-        if (!"FRANCE".equalsIgnoreCase(countryOfResidence)){
-            throw new IllegalArgumentException("Only users from France are allowed.");
-        }
+        throwIfPresent(UserRules.checkCountryOfResidence(countryOfResidence, countryRegistry.getTable()));
     }
 
     public void verifyUserPhoneNumber(String phoneNumber) throws IllegalArgumentException {
-        if (!(phoneNumber == null) && !phoneNumber.replace(" ","").matches("^((\\+)33|0)[1-9](\\d{2}){4}$")){
-            throw new IllegalArgumentException("Your phone number is missing or invalid. It must be in the format 0X XX XX XX XX or +33 X XX XX XX XX.");
-        }
+        throwIfPresent(UserRules.checkPhoneNumber(phoneNumber, countryRegistry.getTable().getDefaultCountry()));
     }
 
     public void verifyUserBirthdate(LocalDate birthdate) throws IllegalArgumentException {
-        if (birthdate == null) {
-            throw new IllegalArgumentException("Birthdate is required.");
-        }
-        if (birthdate.isAfter(LocalDate.now())){
-            throw new IllegalArgumentException("Birthdate cannot be in the future.");
-        }
-        int age = Period.between(birthdate, LocalDate.now()).getYears();
-        if (age <18) {
-            throw new IllegalArgumentException("User must be at least 18 years old.");
+        throwIfPresent(UserRules.checkBirthdate(birthdate, countryRegistry.getTable().getDefaultCountry()));
+    }
+
+    private static void throwIfPresent(Violation violation) {
+        if (violation != null) {
+            throw new UserValidationException(ValidationResult.of(violation));
         }
     }
 }
@@ -0,0 +1,249 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.config.UserIdSequenceInitializer;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserSnapshotResponse;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+// Binary snapshots of the users table, for environments that keep the in-memory database.
+// A snapshot is one repeatable-read transaction on the primary: registrations go on while it is written and are
+// not part of it. The file is deflated at the fastest level: a header, one record per user, then an end marker
+// with the number of records. It is written next to its final name and moved into place once complete.
+// app.users.snapshot.restore-from loads a snapshot with plain JDBC batches before the application is ready:
+// no validation, no uniqueness check, no per-user transaction, the rows were all valid when they were saved.
+@Service
+@DependsOn("entityManagerFactory")
+public class UserSnapshotService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserSnapshotService.class);
+
+    private static final int MAGIC = 0x55534e50;
+    // version 2 adds registration_id, version 1 files are still restored
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int RESTORE_BATCH_SIZE = 10_000;
+    private static final DateTimeFormatter FILE_NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private static final byte ROW = 1;
+    private static final byte END = 0;
+    private static final byte NO_GENDER = -1;
+    private static final long NO_PHONE_KEY = -1;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserIdSequenceInitializer userIdSequenceInitializer;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @Value("${app.users.snapshot.directory:snapshots}")
+    private Path directory;
+
+    @Value("${app.users.snapshot.restore-from:}")
+    private String restoreFrom;
+
+    // the phone number filter is built from the table once this has run, see its @DependsOn
+    @PostConstruct
+    public void restoreOnStartup() {
+        if (restoreFrom.isBlank()) {
+            return;
+        }
+        UserSnapshotResponse restored = restore(Path.of(restoreFrom));
+        LOGGER.info("Restored {} users from {} in {} ms", restored.users(), restored.fileName(), restored.durationMillis());
+    }
+
+    // a new file in app.users.snapshot.directory
+    public synchronized UserSnapshotResponse createSnapshot() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return snapshot(directory.resolve("users-" + LocalDateTime.now().format(FILE_NAME_TIME) + ".snapshot"));
+    }
+
+    public UserSnapshotResponse snapshot(Path file) {
+        long start = System.nanoTime();
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+
+        // not read-only, which would send it to a replica: a snapshot is of the primary
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        long users;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(Files.newOutputStream(partial), new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE),
+                BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            users = transactionTemplate.execute(status -> {
+                long[] count = { 0 };
+                jdbcTemplate.query("SELECT id, name, birthdate, country_of_residence, phone_number, phone_key, gender, "
+                        + "registration_id FROM users ORDER BY id", row -> {
+                    try {
+                        out.writeByte(ROW);
+                        out.writeInt(row.getInt(1));
+                        out.writeUTF(row.getString(2));
+                        out.writeInt((int) row.getObject(3, LocalDate.class).toEpochDay());
+                        out.writeUTF(row.getString(4));
+                        String phoneNumber = row.getString(5);
+                        out.writeBoolean(phoneNumber != null);
+                        if (phoneNumber != null) {
+                            out.writeUTF(phoneNumber);
+                        }
+                        long phoneKey = row.getLong(6);
+                        out.writeLong(row.wasNull() ? NO_PHONE_KEY : phoneKey);
+                        String gender = row.getString(7);
+                        out.writeByte(gender == null ? NO_GENDER : Gender.valueOf(gender).ordinal());
+                        // write-behind replay finds the users it already inserted by it, see UserWriteBehindService
+                        String registrationId = row.getString(8);
+                        out.writeBoolean(registrationId != null);
+                        if (registrationId != null) {
+                            out.writeUTF(registrationId);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+                return count[0];
+            });
+            out.writeByte(END);
+            out.writeLong(users);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw (RuntimeException) e;
+        }
+
+        try {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return UserSnapshotResponse.of(file.toString(), users, Files.size(file), start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // into an empty users table only, in one transaction: a damaged file leaves the table empty
+    public UserSnapshotResponse restore(Path file) throws IllegalArgumentException {
+        long start = System.nanoTime();
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Snapshot " + file + " does not exist.");
+        }
+        if (!jdbcTemplate.queryForList("SELECT id FROM users LIMIT 1", Integer.class).isEmpty()) {
+            throw new IllegalArgumentException("A snapshot can only be restored into an empty users table.");
+        }
+
+        long users = new TransactionTemplate(transactionManager).execute(status -> jdbcTemplate.execute(
+                (ConnectionCallback<Long>) connection -> {
+                    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                            new InflaterInputStream(Files.newInputStream(file), new Inflater(), BUFFER_SIZE),
+                            BUFFER_SIZE));
+                         PreparedStatement insert = connection.prepareStatement(
+                                 "INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender, "
+                                         + "registration_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                        return load(file, in, insert);
+                    } catch (EOFException | ZipException e) {
+                        throw new IllegalArgumentException("Snapshot " + file + " is truncated or damaged.");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+
+        userIdSequenceInitializer.alignSequenceWithExistingIds();
+        userResponseCache.invalidateAll();
+        missingUserIdCache.invalidateAll();
+        try {
+            return UserSnapshotResponse.of(file.toString(), users, Files.size(file), start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long load(Path file, DataInputStream in, PreparedStatement insert) throws IOException, SQLException {
+        int version = in.readInt() == MAGIC ? in.readInt() : -1;
+        if (version != 1 && version != VERSION) {
+            throw new IllegalArgumentException("Snapshot " + file + " is not a users snapshot of version " + VERSION + ".");
+        }
+        Gender[] genders = Gender.values();
+        long users = 0;
+        byte marker;
+        while ((marker = in.readByte()) == ROW) {
+            insert.setInt(1, in.readInt());
+            insert.setString(2, in.readUTF());
+            insert.setDate(3, Date.valueOf(LocalDate.ofEpochDay(in.readInt())));
+            insert.setString(4, in.readUTF());
+            insert.setString(5, in.readBoolean() ? in.readUTF() : null);
+            long phoneKey = in.readLong();
+            if (phoneKey == NO_PHONE_KEY) {
+                insert.setNull(6, Types.BIGINT);
+            } else {
+                insert.setLong(6, phoneKey);
+            }
+            byte gender = in.readByte();
+            insert.setString(7, gender == NO_GENDER ? null : genders[gender].name());
+            insert.setString(8, version >= 2 && in.readBoolean() ? in.readUTF() : null);
+            insert.addBatch();
+            if (++users % RESTORE_BATCH_SIZE == 0) {
+                insert.executeBatch();
+            }
+        }
+        insert.executeBatch();
+        // reading on to the end of the stream makes the inflater check the zlib trailer, the checksum included:
+        // a file cut inside it fails there with an EOFException
+        if (marker != END || in.readLong() != users || in.read() != -1) {
+            throw new IllegalArgumentException("Snapshot " + file + " is truncated or damaged.");
+        }
+        return users;
+    }
+}
@@ -0,0 +1,390 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.exception.RegistrationNotFoundException;
+import com.boisseau.offertechnicaltest.exception.UserValidationException;
+import com.boisseau.offertechnicaltest.model.RegistrationStatus;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.RegistrationResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchItemResult;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import com.boisseau.offertechnicaltest.validation.CountryTable;
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+// Write-behind registration (app.users.write-behind.enabled): a request is verified right away, written to
+// the registration journal and queued, and a single writer thread inserts the queue in batches.
+// The journal is replayed at startup, so a registration accepted before a crash or a restart is still written.
+@Service
+@ConditionalOnProperty(name = "app.users.write-behind.enabled", havingValue = "true")
+public class UserWriteBehindService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserWriteBehindService.class);
+
+    private static final long MAX_RETRY_DELAY_MS = 10_000;
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private UserBatchRegisterService userBatchRegisterService;
+
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Autowired
+    private CountryRegistry countryRegistry;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Value("${app.users.write-behind.journal:write-behind/registrations.ndjson}")
+    private Path journalFile;
+
+    @Value("${app.users.write-behind.fsync:true}")
+    private boolean fsync;
+
+    // rewritten with only the pending registrations and the retained outcomes once it grows past this size
+    @Value("${app.users.write-behind.journal-max-bytes:67108864}")
+    private long journalMaxBytes;
+
+    @Value("${app.users.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // attempts at writing a batch before it is split, or an entry before it is rejected
+    @Value("${app.users.write-behind.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${app.users.write-behind.batch-size:500}")
+    private int batchSize;
+
+    // outcomes kept for the status endpoint, the oldest are forgotten first
+    @Value("${app.users.write-behind.retained-outcomes:100000}")
+    private int retainedOutcomes;
+
+    private RegistrationJournal journal;
+    private BlockingQueue<RegistrationJournal.Entry> queue;
+    private Cache<String, RegistrationJournal.Entry> outcomes;
+    private Thread writer;
+
+    // the number reserved by a pending entry is kept with it: recomputed later, from a reloaded country table,
+    // it could be another one and the reservation would never be released
+    private record Pending(RegistrationJournal.Entry entry, long phoneKey) {
+    }
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    // numbers of the pending registrations, a second one is refused before it is queued
+    private final Set<Long> pendingPhoneKeys = ConcurrentHashMap.newKeySet();
+    private final Object acceptLock = new Object();
+    // entries in the journal waiting for their fsync before they are queued, guarded by acceptLock
+    private int syncing;
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = RegistrationJournal.open(journalFile, jsonMapper, retainedOutcomes, fsync);
+        outcomes = Caffeine.newBuilder().maximumSize(retainedOutcomes).build();
+        for (RegistrationJournal.Entry outcome : journal.getOutcomes()) {
+            outcomes.put(outcome.trackingId(), outcome);
+        }
+
+        List<RegistrationJournal.Entry> replayed = journal.getPending();
+        // a crash between an insert and the journal update leaves registrations pending whose users are written
+        Map<String, Integer> writtenUserIds = writtenUserIds(replayed);
+        List<RegistrationJournal.Entry> alreadyWritten = new ArrayList<>();
+        queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, replayed.size()));
+        for (RegistrationJournal.Entry entry : replayed) {
+            Integer userId = writtenUserIds.get(entry.trackingId());
+            if (userId != null) {
+                alreadyWritten.add(entry.created(userId));
+                continue;
+            }
+            // against the current table: another plan can give two replayed entries one number, the first holds it
+            long phoneKey = phoneKey(entry.request());
+            if (phoneKey != PhoneNumbers.NO_KEY && !pendingPhoneKeys.add(phoneKey)) {
+                phoneKey = PhoneNumbers.NO_KEY;
+            }
+            pending.put(entry.trackingId(), new Pending(entry, phoneKey));
+            queue.add(entry);
+        }
+        if (!alreadyWritten.isEmpty()) {
+            journal.sync(journal.appendAll(alreadyWritten));
+            for (RegistrationJournal.Entry outcome : alreadyWritten) {
+                outcomes.put(outcome.trackingId(), outcome);
+            }
+        }
+        if (!replayed.isEmpty()) {
+            LOGGER.info("Replaying {} registrations accepted before the last shutdown, {} of them already written",
+                    replayed.size(), alreadyWritten.size());
+        }
+
+        writer = new Thread(this::drain, "user-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // whatever is still queued stays in the journal for the next start
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        writer.interrupt();
+        writer.join(MAX_RETRY_DELAY_MS);
+        journal.close();
+    }
+
+    public RegistrationResponse addUser(UserCreationRequest request) throws IllegalArgumentException {
+
+        // same checks, in the same order, as UserRegisterService
+        CountryTable countries = countryRegistry.getTable();
+        ValidationResult result = UserRules.validate(request, countries);
+        if (!result.isValid()) {
+            throw new UserValidationException(result);
+        }
+
+        // the number is reserved before it is looked up: a registration of it still pending holds it, and once it
+        // is written the filter and the database have it before the reservation is released
+        long phoneKey = UserRules.phoneKey(request, countries);
+        if (phoneKey != PhoneNumbers.NO_KEY && !pendingPhoneKeys.add(phoneKey)) {
+            throw new UserValidationException(ValidationResult.of(UserRules.PHONE_DUPLICATE));
+        }
+
+        RegistrationJournal.Entry entry = RegistrationJournal.Entry.pending(UUID.randomUUID().toString(), request);
+        try {
+            if (phoneKey != PhoneNumbers.NO_KEY && phoneNumberFilter.mightContain(phoneKey)) {
+                if (userRepo.existsByPhoneKey(phoneKey)) {
+                    throw new UserValidationException(ValidationResult.of(UserRules.PHONE_DUPLICATE));
+                }
+                phoneNumberFilter.recordFalsePositive();
+            }
+            long position;
+            synchronized (acceptLock) {
+                // only this method adds to the queue, a slot counted in syncing stays free until its entry is added
+                if (queue.remainingCapacity() - syncing == 0) {
+                    throw new RejectedExecutionException("The registration queue is full, try again later.");
+                }
+                position = journal.append(entry);
+                syncing++;
+            }
+            // outside the lock: the registrations accepted meanwhile share the same fsync
+            boolean synced = false;
+            try {
+                journal.sync(position);
+                synced = true;
+            } finally {
+                synchronized (acceptLock) {
+                    syncing--;
+                    if (synced) {
+                        pending.put(entry.trackingId(), new Pending(entry, phoneKey));
+                        queue.add(entry);
+                    }
+                }
+                if (!synced) {
+                    discard(entry);
+                }
+            }
+        } catch (IOException e) {
+            pendingPhoneKeys.remove(phoneKey);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            pendingPhoneKeys.remove(phoneKey);
+            throw e;
+        }
+        return toResponse(entry);
+    }
+
+    public RegistrationResponse getRegistration(String trackingId) {
+        Pending accepted = pending.get(trackingId);
+        RegistrationJournal.Entry entry = accepted == null ? outcomes.getIfPresent(trackingId) : accepted.entry();
+        if (entry == null) {
+            throw new RegistrationNotFoundException("Registration not found with tracking id: " + trackingId + ".");
+        }
+        return toResponse(entry);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<RegistrationJournal.Entry> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Retried with a growing delay, the entries are already acknowledged. A batch still failing after max-attempts
+    // is written one entry at a time, so that only an entry the database never takes is rejected.
+    private void write(List<RegistrationJournal.Entry> batch) throws InterruptedException {
+        long delay = 100;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                complete(batch, insert(batch));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // a number registered through another endpoint in the meantime, or a value the table refuses
+                if (batch.size() == 1) {
+                    complete(batch, List.of(rejection(e)));
+                } else {
+                    writeOneByOne(batch);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    if (batch.size() == 1) {
+                        LOGGER.error("Registration {} rejected after {} failed attempts", batch.get(0).trackingId(), attempt, e);
+                        complete(batch, List.of(UserBatchItemResult.rejected(0, "The registration could not be written.")));
+                    } else {
+                        writeOneByOne(batch);
+                    }
+                    return;
+                }
+                LOGGER.warn("Writing {} registrations failed, retrying in {} ms", batch.size(), delay, e);
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private void writeOneByOne(List<RegistrationJournal.Entry> batch) throws InterruptedException {
+        for (RegistrationJournal.Entry entry : batch) {
+            write(List.of(entry));
+        }
+    }
+
+    // the phone number rule for the phone_key index, otherwise the SQL state: the message may quote the values
+    private static UserBatchItemResult rejection(DataIntegrityViolationException e) {
+        if (UserRepo.isPhoneKeyConflict(e.getMessage())) {
+            return UserBatchItemResult.rejected(0, ValidationResult.of(UserRules.PHONE_DUPLICATE));
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return UserBatchItemResult.rejected(0,
+                        "The database refused the registration (SQL state " + sqlException.getSQLState() + ").");
+            }
+        }
+        return UserBatchItemResult.rejected(0, "The database refused the registration.");
+    }
+
+    // the tracking ids are stored with the users, see writtenUserIds()
+    private List<UserBatchItemResult> insert(List<RegistrationJournal.Entry> batch) {
+        List<UserCreationRequest> requests = new ArrayList<>(batch.size());
+        List<String> trackingIds = new ArrayList<>(batch.size());
+        for (RegistrationJournal.Entry entry : batch) {
+            requests.add(entry.request());
+            trackingIds.add(entry.trackingId());
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        return transactionTemplate.execute(status -> userBatchRegisterService
+                .insertVerified(requests, new UserBatchItemResult[requests.size()], trackingIds)
+                .results());
+    }
+
+    // tracking id -> user id of the entries already inserted, read in a read-write transaction to reach the primary
+    private Map<String, Integer> writtenUserIds(List<RegistrationJournal.Entry> entries) {
+        Map<String, Integer> userIds = new HashMap<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < entries.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> trackingIds = new ArrayList<>();
+            for (RegistrationJournal.Entry entry : entries.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, entries.size()))) {
+                trackingIds.add(entry.trackingId());
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                for (User user : userRepo.findByRegistrationIdIn(trackingIds)) {
+                    userIds.put(user.getRegistrationId(), user.getId());
+                }
+            });
+        }
+        return userIds;
+    }
+
+    private void complete(List<RegistrationJournal.Entry> batch, List<UserBatchItemResult> results) {
+        List<RegistrationJournal.Entry> done = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            UserBatchItemResult result = results.get(i);
+            if (result.status() == UserBatchItemResult.Status.CREATED) {
+                done.add(batch.get(i).created(result.user().id()));
+                userResponseCache.put(result.user());
+            } else {
+                done.add(batch.get(i).rejected(result.reason()));
+            }
+        }
+
+        try {
+            journal.sync(journal.appendAll(done));
+            journal.compactIfLargerThan(journalMaxBytes);
+        } catch (IOException e) {
+            // the users are committed but still pending in the journal: a restart finds them by tracking id
+            LOGGER.error("Could not record the outcome of {} registrations", done.size(), e);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            outcomes.put(done.get(i).trackingId(), done.get(i));
+            Pending accepted = pending.remove(done.get(i).trackingId());
+            if (accepted != null) {
+                pendingPhoneKeys.remove(accepted.phoneKey());
+            }
+        }
+    }
+
+    // the pending line may still reach the disk, without this outcome it would be written at the next start
+    private void discard(RegistrationJournal.Entry entry) {
+        try {
+            journal.append(entry.rejected("The registration could not be recorded."));
+        } catch (IOException e) {
+            LOGGER.error("Could not discard registration {}", entry.trackingId(), e);
+        }
+    }
+
+    private long phoneKey(UserCreationRequest request) {
+        return UserRules.phoneKey(request, countryRegistry.getTable());
+    }
+
+    private static RegistrationResponse toResponse(RegistrationJournal.Entry entry) {
+        return new RegistrationResponse(entry.trackingId(), entry.status(), entry.userId(), entry.reason());
+    }
+}
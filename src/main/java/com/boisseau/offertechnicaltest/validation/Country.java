@@ -0,0 +1,17 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import java.util.List;
+
+// One row of the country table. Only allowed countries can register; the others are known so that their
+// residents get a clear refusal and their numbers are checked against the right plan.
+public record Country(
+        String code,
+        String alpha3Code,
+        String name,
+        List<String> aliases,
+        boolean allowed,
+        int minimumAge,
+        PhonePlan phonePlan,
+        // how the number is written, for the error message
+        String phoneFormat) {
+}
@@ -0,0 +1,53 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+// The country table in use. A reload parses the whole file into a new CountryTable and swaps it in:
+// requests keep the table they started with and nothing waits. A file that does not parse leaves
+// the current table in place.
+@Component
+public class CountryRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CountryRegistry.class);
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${app.countries.location:classpath:countries.csv}")
+    private String location;
+
+    private volatile CountryTable table;
+
+    @PostConstruct
+    public CountryTable reload() {
+        return reload(resourceLoader.getResource(location));
+    }
+
+    public CountryTable reload(Resource resource) throws IllegalArgumentException {
+        CountryTable loaded;
+        try (InputStream in = resource.getInputStream()) {
+            loaded = CountryTable.parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        table = loaded;
+        LOGGER.info("Country table loaded from {}: {}", resource.getDescription(), loaded);
+        return loaded;
+    }
+
+    // read once per request, so that all its rules see the same table
+    public CountryTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,205 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Immutable lookup of a country by ISO alpha-2 or alpha-3 code, name or alias, whatever their case.
+// Open addressing over a power-of-two array at most half full, hashed and compared char by char
+// with the case folding of equalsIgnoreCase: a lookup allocates nothing.
+public final class CountryTable {
+
+    private final List<Country> countries;
+    private final Country defaultCountry;
+    private final Violation notAllowed;
+    private final String[] keys;
+    private final Country[] values;
+    private final int mask;
+
+    private CountryTable(List<Country> countries) {
+        this.countries = List.copyOf(countries);
+        this.defaultCountry = this.countries.stream()
+                .filter(Country::allowed)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("At least one country must be allowed."));
+
+        List<String> allowedNames = this.countries.stream().filter(Country::allowed).map(Country::name).toList();
+        String names = allowedNames.size() == 1
+                ? allowedNames.get(0)
+                : String.join(", ", allowedNames.subList(0, allowedNames.size() - 1)) + " or " + allowedNames.get(allowedNames.size() - 1);
+        this.notAllowed = new Violation("countryOfResidence", "country.not-allowed", "Only users from " + names + " are allowed.");
+
+        int keyCount = 0;
+        for (Country country : this.countries) {
+            keyCount += 3 + country.aliases().size();
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, keyCount) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.values = new Country[capacity];
+        this.mask = capacity - 1;
+        for (Country country : this.countries) {
+            put(country.code(), country);
+            put(country.alpha3Code(), country);
+            put(country.name(), country);
+            for (String alias : country.aliases()) {
+                put(alias, country);
+            }
+        }
+    }
+
+    public static CountryTable of(List<Country> countries) {
+        return new CountryTable(countries);
+    }
+
+    // One country per line, fields separated by ';', aliases by '|':
+    // code;alpha3Code;name;aliases;allowed;minimumAge;callingCode;trunkPrefix;nationalDigits;leadingZero;phoneFormat
+    // nationalDigits is a count ("9") or a range ("8-9"). Empty lines and lines starting with '#' are skipped.
+    public static CountryTable parse(InputStream in) throws IOException {
+        List<Country> countries = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                countries.add(parseLine(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Country table line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return new CountryTable(countries);
+    }
+
+    private static Country parseLine(String line) {
+        String[] fields = line.split(";", -1);
+        if (fields.length != 11) {
+            throw new IllegalArgumentException("11 fields expected, " + fields.length + " found.");
+        }
+        String[] digits = fields[8].split("-", 2);
+        int minDigits = parseInt(digits[0]);
+        int maxDigits = digits.length == 2 ? parseInt(digits[1]) : minDigits;
+        List<String> aliases = fields[3].isBlank()
+                ? List.of()
+                : Arrays.stream(fields[3].split("\\|")).map(String::trim).toList();
+        return new Country(
+                requireCode(fields[0].trim(), 2),
+                requireCode(fields[1].trim(), 3),
+                fields[2].trim(),
+                aliases,
+                Boolean.parseBoolean(fields[4].trim()),
+                parseInt(fields[5]),
+                new PhonePlan(fields[6].trim(), fields[7].trim(), minDigits, maxDigits, Boolean.parseBoolean(fields[9].trim())),
+                fields[10].trim());
+    }
+
+    private static String requireCode(String code, int length) {
+        if (code.length() != length || !code.chars().allMatch(c -> c >= 'A' && c <= 'Z')) {
+            throw new IllegalArgumentException("Invalid ISO code: " + code + ".");
+        }
+        return code;
+    }
+
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value + ".");
+        }
+    }
+
+    private void put(String key, Country country) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Empty name for country " + country.code() + ".");
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equalsIgnoreCase(key)) {
+                if (values[slot] == country) {
+                    return;
+                }
+                throw new IllegalArgumentException(
+                        "\"" + key + "\" names both " + values[slot].code() + " and " + country.code() + ".");
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = country;
+    }
+
+    // null when no country has this code, name or alias
+    public Country resolve(CharSequence name) {
+        if (name == null) {
+            return null;
+        }
+        int slot = hash(name) & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (equalsIgnoreCase(key, name)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    // the country whose plan and minimum age apply when the given one is unknown
+    public Country resolveOrDefault(CharSequence name) {
+        Country country = resolve(name);
+        return country == null ? defaultCountry : country;
+    }
+
+    // same folding as String.equalsIgnoreCase, so that equal keys hash alike
+    private static int hash(CharSequence value) {
+        int hash = 0;
+        for (int i = 0; i < value.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        // spread the high bits over the slots
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsIgnoreCase(String key, CharSequence value) {
+        if (key.length() != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char a = key.charAt(i);
+            char b = value.charAt(i);
+            if (a != b) {
+                char upperA = Character.toUpperCase(a);
+                char upperB = Character.toUpperCase(b);
+                if (upperA != upperB && Character.toLowerCase(upperA) != Character.toLowerCase(upperB)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public List<Country> getCountries() {
+        return countries;
+    }
+
+    public Country getDefaultCountry() {
+        return defaultCountry;
+    }
+
+    // the refusal of a country that is unknown or not allowed
+    public Violation getNotAllowed() {
+        return notAllowed;
+    }
+
+    @Override
+    public String toString() {
+        return countries.stream().map(Country::code).collect(Collectors.joining(", ", "CountryTable[", "]"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.boisseau.offertechnicaltest.validation;
+
+// Canonical form of a phone number: its E.164 digits as a long, calling code then national digits.
+// With the French plan "06 12 34 56 78", "0612345678" and "+33 6 12 34 56 78" all give 33612345678.
+public final class PhoneNumbers {
+
+    public static final long NO_KEY = -1;
+
+    // the only plan before the country registry, still the one of users saved without a country check
+    public static final PhonePlan FRANCE = new PhonePlan("33", "0", 9, 9, false);
+
+    private static final long[] POWERS_OF_TEN = new long[13];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private PhoneNumbers() {
+    }
+
+    // Accepts exactly what phoneNumber.replace(" ", "").matches("^((\\+)33|0)[1-9](\\d{2}){4}$") accepts.
+    public static long toKey(CharSequence phoneNumber) {
+        return toKey(phoneNumber, FRANCE);
+    }
+
+    // Single pass, no allocation. NO_KEY when the number is null or not valid in the plan.
+    public static long toKey(CharSequence phoneNumber, PhonePlan plan) {
+        if (phoneNumber == null) {
+            return NO_KEY;
+        }
+        int length = phoneNumber.length();
+
+        int i = skipSpaces(phoneNumber, 0, length);
+        if (i == length) {
+            return NO_KEY;
+        }
+        if (phoneNumber.charAt(i) == '+') {
+            i++;
+            String callingCode = plan.callingCode();
+            for (int p = 0; p < callingCode.length(); p++) {
+                i = skipSpaces(phoneNumber, i, length);
+                if (i == length || phoneNumber.charAt(i++) != callingCode.charAt(p)) {
+                    return NO_KEY;
+                }
+            }
+        } else {
+            String trunkPrefix = plan.trunkPrefix();
+            for (int p = 0; p < trunkPrefix.length(); p++) {
+                if (i == length || phoneNumber.charAt(i++) != trunkPrefix.charAt(p)) {
+                    return NO_KEY;
+                }
+            }
+        }
+
+        long national = 0;
+        int digits = 0;
+        for (; i < length; i++) {
+            char c = phoneNumber.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (c < '0' || c > '9' || (digits == 0 && c == '0' && !plan.leadingZero()) || digits == plan.maxDigits()) {
+                return NO_KEY;
+            }
+            national = national * 10 + (c - '0');
+            digits++;
+        }
+        if (digits < plan.minDigits()) {
+            return NO_KEY;
+        }
+        return callingCode(plan) * POWERS_OF_TEN[digits] + national;
+    }
+
+    private static long callingCode(PhonePlan plan) {
+        String callingCode = plan.callingCode();
+        long value = 0;
+        for (int p = 0; p < callingCode.length(); p++) {
+            value = value * 10 + (callingCode.charAt(p) - '0');
+        }
+        return value;
+    }
+
+    private static int skipSpaces(CharSequence value, int from, int length) {
+        while (from < length && value.charAt(from) == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    public static String toE164(long key) {
+        return "+" + key;
+    }
+}
@@ -0,0 +1,20 @@
+package com.boisseau.offertechnicaltest.validation;
+
+// Numbering plan of a country, enough to check a number and give its E.164 key:
+// "+" and the calling code, or the trunk prefix (possibly none), then minDigits to maxDigits national digits,
+// which may only start with 0 when leadingZero is set. Spaces are allowed anywhere.
+public record PhonePlan(String callingCode, String trunkPrefix, int minDigits, int maxDigits, boolean leadingZero) {
+
+    public PhonePlan {
+        if (callingCode == null || !callingCode.matches("[1-9]\\d{0,2}")) {
+            throw new IllegalArgumentException("Invalid calling code: " + callingCode + ".");
+        }
+        if (trunkPrefix == null || !trunkPrefix.matches("\\d{0,2}")) {
+            throw new IllegalArgumentException("Invalid trunk prefix: " + trunkPrefix + ".");
+        }
+        // the key, calling code and national digits, must fit in a long
+        if (minDigits < 1 || maxDigits < minDigits || maxDigits > 12) {
+            throw new IllegalArgumentException("Invalid number of national digits: " + minDigits + "-" + maxDigits + ".");
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+// The registration rules, declared once for the single, batch, import, reactive and write-behind paths.
+// Each field reports only the first rule its value fails (a missing value is not also "in the future").
+// The country of residence decides which countries are allowed, the phone numbering plan and the minimum
+// age, from the CountryTable the caller read once for the request. validate() runs the fields cheapest
+// first and never throws; the one rule that needs the database, PHONE_DUPLICATE, is left to the services,
+// to run last and only for otherwise valid requests.
+public final class UserRules {
+
+    public record Rule<T>(String field, String id, String message, Predicate<T> test) {
+    }
+
+    public static final Violation USER_REQUIRED = new Violation("user", "user.required", "User is required.");
+
+    public static final Violation PHONE_DUPLICATE = new Violation("phoneNumber", "phone.duplicate", "This number is already used.");
+
+    public static final List<Rule<String>> NAME = List.of(
+            new Rule<>("name", "name.required", "Name is required.",
+                    name -> name != null && !name.isBlank()));
+
+    // then CountryTable.getNotAllowed()
+    public static final List<Rule<String>> COUNTRY_OF_RESIDENCE = List.of(
+            new Rule<>("countryOfResidence", "country.required", "Country of residence is required.",
+                    country -> country != null && !country.isBlank()));
+
+    // then the minimum age of the country
+    public static final List<Rule<LocalDate>> BIRTHDATE = List.of(
+            new Rule<>("birthdate", "birthdate.required", "Birthdate is required.",
+                    birthdate -> birthdate != null),
+            new Rule<>("birthdate", "birthdate.future", "Birthdate cannot be in the future.",
+                    birthdate -> !birthdate.isAfter(LocalDate.now())));
+
+    private UserRules() {
+    }
+
+    // the first rule the value fails, null when it passes them all
+    public static <T> Violation check(List<Rule<T>> rules, T value) {
+        for (Rule<T> rule : rules) {
+            if (!rule.test().test(value)) {
+                return new Violation(rule.field(), rule.id(), rule.message());
+            }
+        }
+        return null;
+    }
+
+    public static Violation checkCountryOfResidence(String countryOfResidence, CountryTable countries) {
+        Violation violation = check(COUNTRY_OF_RESIDENCE, countryOfResidence);
+        if (violation != null) {
+            return violation;
+        }
+        Country country = countries.resolve(countryOfResidence);
+        return country == null || !country.allowed() ? countries.getNotAllowed() : null;
+    }
+
+    // optional, but a number that is sent must follow the plan of the country
+    public static Violation checkPhoneNumber(String phoneNumber, Country country) {
+        if (phoneNumber == null || phoneKey(phoneNumber, country) != PhoneNumbers.NO_KEY) {
+            return null;
+        }
+        return new Violation("phoneNumber", "phone.invalid",
+                "Your phone number is missing or invalid. It must be in the format " + country.phoneFormat() + ".");
+    }
+
+    public static Violation checkBirthdate(LocalDate birthdate, Country country) {
+        Violation violation = check(BIRTHDATE, birthdate);
+        if (violation != null) {
+            return violation;
+        }
+        if (Period.between(birthdate, LocalDate.now()).getYears() < country.minimumAge()) {
+            return new Violation("birthdate", "birthdate.underage",
+                    "User must be at least " + country.minimumAge() + " years old.");
+        }
+        return null;
+    }
+
+    // string checks, then the country lookup, the phone number parse, and the birthdate which reads the clock
+    public static ValidationResult validate(UserCreationRequest request, CountryTable countries) {
+        if (request == null) {
+            return ValidationResult.of(USER_REQUIRED);
+        }
+        Country country = countries.resolveOrDefault(request.countryOfResidence());
+        List<Violation> violations = null;
+        violations = add(violations, check(NAME, request.name()));
+        violations = add(violations, checkCountryOfResidence(request.countryOfResidence(), countries));
+        violations = add(violations, checkPhoneNumber(request.phoneNumber(), country));
+        violations = add(violations, checkBirthdate(request.birthdate(), country));
+        return ValidationResult.of(violations);
+    }
+
+    // same number whatever its format, NO_KEY when absent or invalid in the plan of the country
+    public static long phoneKey(String phoneNumber, Country country) {
+        return phoneNumber == null ? PhoneNumbers.NO_KEY : PhoneNumbers.toKey(phoneNumber, country.phonePlan());
+    }
+
+    public static long phoneKey(UserCreationRequest request, CountryTable countries) {
+        return phoneKey(request.phoneNumber(), countries.resolveOrDefault(request.countryOfResidence()));
+    }
+
+    // the list is only allocated for an invalid request
+    private static List<Violation> add(List<Violation> violations, Violation violation) {
+        if (violation == null) {
+            return violations;
+        }
+        if (violations == null) {
+            violations = new ArrayList<>(4);
+        }
+        violations.add(violation);
+        return violations;
+    }
+}
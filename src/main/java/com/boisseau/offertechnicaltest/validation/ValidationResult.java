@@ -0,0 +1,43 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Every rule a request failed, in the order the rules ran. Valid requests all share VALID.
+public final class ValidationResult {
+
+    public static final ValidationResult VALID = new ValidationResult(List.of());
+
+    private final List<Violation> violations;
+
+    private ValidationResult(List<Violation> violations) {
+        this.violations = violations;
+    }
+
+    public static ValidationResult of(List<Violation> violations) {
+        return violations == null || violations.isEmpty()
+                ? VALID
+                : new ValidationResult(Collections.unmodifiableList(violations));
+    }
+
+    public static ValidationResult of(Violation violation) {
+        return new ValidationResult(List.of(violation));
+    }
+
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    // the messages of all violations, one sentence each
+    public String getMessage() {
+        if (violations.size() == 1) {
+            return violations.get(0).message();
+        }
+        return violations.stream().map(Violation::message).collect(Collectors.joining(" "));
+    }
+}
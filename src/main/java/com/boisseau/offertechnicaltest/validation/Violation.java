@@ -0,0 +1,5 @@
+package com.boisseau.offertechnicaltest.validation;
+
+// One failed rule: the request field it is about, the rule id (the users.rejections tag) and the message shown to the client
+public record Violation(String field, String rule, String message) {
+}
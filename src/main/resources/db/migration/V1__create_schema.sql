@@ -0,0 +1,42 @@
+-- The schema as Hibernate's ddl-auto=update used to create it. Databases created that way are baselined at this
+-- version (spring.flyway.baseline-on-migrate) and only get the later scripts.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE import_rejections_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE users (
+    id                   INTEGER      NOT NULL,
+    name                 VARCHAR(255) NOT NULL,
+    birthdate            DATE         NOT NULL,
+    country_of_residence VARCHAR(255) NOT NULL,
+    phone_number         VARCHAR(255),
+    phone_key            BIGINT,
+    gender               VARCHAR(255),
+    PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX idx_users_phone_key ON users (phone_key);
+
+CREATE TABLE import_jobs (
+    id                INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    file_name         VARCHAR(255)  NOT NULL,
+    format            VARCHAR(255)  NOT NULL,
+    status            VARCHAR(255)  NOT NULL,
+    lines_read        BIGINT        NOT NULL,
+    resumed_from_line BIGINT        NOT NULL,
+    created_count     BIGINT        NOT NULL,
+    rejected_count    BIGINT        NOT NULL,
+    started_at        TIMESTAMP(6),
+    updated_at        TIMESTAMP(6),
+    finished_at       TIMESTAMP(6),
+    error             VARCHAR(1000),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE import_rejections (
+    id          BIGINT  NOT NULL,
+    job_id      INTEGER NOT NULL,
+    line_number BIGINT  NOT NULL,
+    reason      VARCHAR(1000),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_import_rejections_job_line ON import_rejections (job_id, line_number);
@@ -0,0 +1,6 @@
+-- one-off startup work already done on this database, see PhoneKeyBackfill
+CREATE TABLE IF NOT EXISTS startup_tasks (
+    name         VARCHAR(64) NOT NULL,
+    completed_at TIMESTAMP   NOT NULL,
+    PRIMARY KEY (name)
+);
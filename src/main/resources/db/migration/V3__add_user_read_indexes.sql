@@ -0,0 +1,4 @@
+-- GET /api/users?name=... : equality on name, pages in id order, read in order straight from the index
+CREATE INDEX IF NOT EXISTS idx_users_name ON users (name, id);
+-- GET /api/users?bornFrom=...&bornTo=... : range on birthdate, the matching rows are then sorted by id
+CREATE INDEX IF NOT EXISTS idx_users_birthdate ON users (birthdate);
@@ -0,0 +1,8 @@
+-- one row, written on the primary and read back on each replica to measure its lag, see ReplicaRouting
+CREATE TABLE replication_heartbeat (
+    id          INTEGER NOT NULL,
+    beat_millis BIGINT  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, 0);
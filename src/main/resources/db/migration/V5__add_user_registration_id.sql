@@ -0,0 +1,4 @@
+-- tracking id of the write-behind registration that inserted the user, see UserWriteBehindService: a registration
+-- replayed after a crash that followed its insert finds its user instead of inserting it again
+ALTER TABLE users ADD COLUMN registration_id VARCHAR(36);
+CREATE UNIQUE INDEX idx_users_registration_id ON users (registration_id);
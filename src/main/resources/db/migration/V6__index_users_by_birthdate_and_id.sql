@@ -0,0 +1,4 @@
+-- GET /api/users?bornFrom=...&bornTo=... pages in (birthdate, id) order, read in order straight from the index
+-- like the name pages; on birthdate alone the rows of the range had to be sorted by id first
+DROP INDEX IF EXISTS idx_users_birthdate;
+CREATE INDEX idx_users_birthdate ON users (birthdate, id);
@@ -0,0 +1,89 @@
+package com.boisseau.offertechnicaltest.aop;
+
+import com.boisseau.offertechnicaltest.exception.UserValidationException;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchItemResult;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogMaskingTest {
+
+    @Test
+    void render_masks_personal_fields_of_a_request() {
+        String rendered = LogMasking.render(new UserCreationRequest(
+                "Jean Valjean", LocalDate.of(1990, 6, 15), "France", "06 12 34 56 78", Gender.MALE));
+
+        assertEquals("UserCreationRequest[name=J***, birthdate=1990-**-**, countryOfResidence=France, "
+                + "phoneNumber=********78, gender=Male]", rendered);
+    }
+
+    @Test
+    void render_masks_users_nested_in_results_and_entities() {
+        UserResponse user = new UserResponse(7, "Cosette", LocalDate.of(2001, 1, 1), "France", "+33612345678", Gender.FEMALE);
+        String batch = LogMasking.render(new UserBatchResponse(1, 0, List.of(UserBatchItemResult.created(0, user))));
+        String entity = LogMasking.render(User.builder()
+                .id(8).name("Fantine").birthdate(LocalDate.of(1980, 2, 3)).countryOfResidence("France")
+                .phoneNumber("0698765432").gender(Gender.FEMALE).build());
+
+        assertFalse(batch.contains("Cosette"));
+        assertFalse(batch.contains("612345678"));
+        assertTrue(batch.contains("UserResponse[id=7, name=C***, birthdate=2001-**-**"));
+        assertFalse(entity.contains("Fantine"));
+        assertFalse(entity.contains("98765432"));
+        assertTrue(entity.contains("phoneNumber=********32"));
+    }
+
+    @Test
+    void render_shortens_collections_and_long_strings() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(i);
+        }
+
+        assertEquals("[0, 1, 2, 3, 4, ... (1000 in all)]", LogMasking.render(ids));
+        assertEquals(103, LogMasking.render("x".repeat(500)).length());
+        assertEquals("null", LogMasking.render(null));
+        assertEquals("1, abc, null", LogMasking.renderArgs(new Object[] { 1, "abc", null }));
+    }
+
+    @Test
+    void renderArgs_masks_parameters_by_name() {
+        String rendered = LogMasking.renderArgs(new String[] { "cursor", "size", "name", "bornFrom", "bornTo" },
+                new Object[] { null, 20, "Javert", LocalDate.of(1970, 5, 6), LocalDate.of(1980, 7, 8) });
+
+        assertEquals("null, 20, J***, 1970-**-**, 1980-**-**", rendered);
+        assertEquals("*********78", LogMasking.renderArgs(new String[] { "phoneKey" }, new Object[] { 33612345678L }));
+    }
+
+    @Test
+    void describe_leaves_the_messages_out() {
+        Exception error = new IllegalStateException("users row 0612345678",
+                new IllegalArgumentException("Duplicate phone_key 33612345678"));
+        String rejection = LogMasking.describe(
+                new UserValidationException(ValidationResult.of(UserRules.PHONE_DUPLICATE)));
+
+        String described = LogMasking.describe(error);
+        assertFalse(described.contains("345678"));
+        assertTrue(described.startsWith("IllegalStateException at "));
+        assertTrue(described.contains(", caused by IllegalArgumentException at "));
+        assertEquals("UserValidationException[" + UserRules.PHONE_DUPLICATE.rule() + "]", rejection);
+    }
+
+    @Test
+    void maskPhoneNumber_keeps_the_last_two_digits_only() {
+        assertEquals("********78", LogMasking.maskPhoneNumber("06 12 34 56 78"));
+        assertEquals("**", LogMasking.maskPhoneNumber("1"));
+        assertEquals("", LogMasking.maskName(""));
+    }
+}
@@ -0,0 +1,63 @@
+package com.boisseau.offertechnicaltest.aop;
+
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoggingAspectTest {
+
+    @Mock
+    private ServiceCallLog serviceCallLog;
+
+    @Mock
+    private ProceedingJoinPoint jp;
+
+    @Mock
+    private MethodSignature signature;
+
+    @InjectMocks
+    private LoggingAspect loggingAspect;
+
+    private Method method;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        method = String.class.getMethod("trim");
+        when(jp.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+    }
+
+    @Test
+    void logMethodCall_skips_an_unknown_id_that_is_not_sampled() throws Throwable {
+        when(jp.proceed()).thenThrow(new UserNotFoundException("User not found with id: 42"));
+        when(serviceCallLog.isSampled(method)).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> loggingAspect.logMethodCall(jp));
+
+        verify(serviceCallLog, never()).failed(any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void logMethodCall_always_hands_over_an_unexpected_failure() throws Throwable {
+        IllegalStateException error = new IllegalStateException("broken");
+        when(jp.proceed()).thenThrow(error);
+
+        assertThrows(IllegalStateException.class, () -> loggingAspect.logMethodCall(jp));
+
+        verify(serviceCallLog, never()).isSampled(any());
+        verify(serviceCallLog).failed(eq(method), any(), any(), eq(error), anyLong());
+    }
+}
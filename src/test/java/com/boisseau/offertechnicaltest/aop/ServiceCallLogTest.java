@@ -0,0 +1,67 @@
+package com.boisseau.offertechnicaltest.aop;
+
+import com.boisseau.offertechnicaltest.exception.RegistrationNotFoundException;
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServiceCallLogTest {
+
+    private static ServiceCallLog serviceCallLog(double sampleRate, String sampleRates) {
+        ServiceCallLog serviceCallLog = new ServiceCallLog();
+        ReflectionTestUtils.setField(serviceCallLog, "bufferSize", 16);
+        ReflectionTestUtils.setField(serviceCallLog, "sampleRate", sampleRate);
+        ReflectionTestUtils.setField(serviceCallLog, "sampleRates", sampleRates);
+        serviceCallLog.start();
+        return serviceCallLog;
+    }
+
+    @Test
+    void parseSampleRates_reads_one_rate_per_method() {
+        assertEquals(Map.of("UserRegisterService.addUser", 1.0, "UserGetDetailsService.getUserById", 0.001),
+                ServiceCallLog.parseSampleRates("UserRegisterService.addUser=1, UserGetDetailsService.getUserById=0.001"));
+        assertTrue(ServiceCallLog.parseSampleRates("").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> ServiceCallLog.parseSampleRates("addUser"));
+    }
+
+    @Test
+    void isExpected_keeps_rejections_and_unknown_ids_apart_from_failures() {
+        assertTrue(ServiceCallLog.isExpected(new IllegalArgumentException("Invalid phone number.")));
+        assertTrue(ServiceCallLog.isExpected(new UserNotFoundException("User not found with id: 42")));
+        assertTrue(ServiceCallLog.isExpected(new RegistrationNotFoundException("Registration not found.")));
+        assertFalse(ServiceCallLog.isExpected(new IllegalStateException("broken")));
+    }
+
+    @Test
+    void isSampled_uses_the_method_rate_before_the_default_one() throws Exception {
+        ServiceCallLog serviceCallLog = serviceCallLog(0, "String.trim=1");
+        Method trim = String.class.getMethod("trim");
+        Method strip = String.class.getMethod("strip");
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(serviceCallLog.isSampled(trim));
+            assertFalse(serviceCallLog.isSampled(strip));
+        }
+        serviceCallLog.stop();
+    }
+
+    @Test
+    void isSampled_keeps_about_the_requested_share() throws Exception {
+        ServiceCallLog serviceCallLog = serviceCallLog(0.1, "");
+        Method trim = String.class.getMethod("trim");
+
+        int sampled = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (serviceCallLog.isSampled(trim)) {
+                sampled++;
+            }
+        }
+        assertEquals(10_000, sampled, 1_000);
+        serviceCallLog.stop();
+    }
+}
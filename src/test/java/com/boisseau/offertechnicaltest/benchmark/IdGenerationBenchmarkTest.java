@@ -0,0 +1,168 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Replays on plain JDBC what Hibernate sends for each id strategy:
+// IDENTITY : one INSERT per row, generated key read back, no JDBC batching
+// SEQUENCE : one "next value for" per ALLOCATION_SIZE rows (pooled-lo), inserts sent as JDBC batches
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+class IdGenerationBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdGenerationBenchmarkTest.class);
+
+    private static final String URL = "jdbc:h2:mem:idbench;DB_CLOSE_DELAY=-1";
+    private static final int ROWS = 64_000;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int[] WRITERS = { 1, 8, 64 };
+
+    private static final String INSERT_COLUMNS = "(name, birthdate, country_of_residence, phone_number, gender)";
+
+    private interface Writer {
+        void write(Connection connection, int writer, int rows) throws SQLException;
+    }
+
+    private static void resetSchema() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users_identity");
+            statement.execute("DROP TABLE IF EXISTS users_sequence");
+            statement.execute("DROP SEQUENCE IF EXISTS users_seq");
+            statement.execute("CREATE TABLE users_identity (id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL, birthdate DATE NOT NULL, country_of_residence VARCHAR(255) NOT NULL, "
+                    + "phone_number VARCHAR(255), gender VARCHAR(16))");
+            statement.execute("CREATE TABLE users_sequence (id INTEGER PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL, birthdate DATE NOT NULL, country_of_residence VARCHAR(255) NOT NULL, "
+                    + "phone_number VARCHAR(255), gender VARCHAR(16))");
+            statement.execute("CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY " + ALLOCATION_SIZE);
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int offset, int writer, int row) throws SQLException {
+        statement.setString(offset, "User " + writer + "-" + row);
+        statement.setDate(offset + 1, Date.valueOf("1990-01-01"));
+        statement.setString(offset + 2, "France");
+        statement.setString(offset + 3, String.format("06%02d%06d", writer, row));
+        statement.setString(offset + 4, "OTHER");
+    }
+
+    private static void writeIdentity(Connection connection, int writer, int rows) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO users_identity " + INSERT_COLUMNS + " VALUES (?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int row = 0; row < rows; row++) {
+                bind(insert, 1, writer, row);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+                if ((row + 1) % ALLOCATION_SIZE == 0) {
+                    connection.commit();
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    private static void writeSequence(Connection connection, int writer, int rows) throws SQLException {
+        try (PreparedStatement nextValue = connection.prepareStatement("SELECT NEXT VALUE FOR users_seq");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO users_sequence (id, name, birthdate, country_of_residence, phone_number, gender) "
+                             + "VALUES (?, ?, ?, ?, ?, ?)")) {
+            long low = 0;
+            int remaining = 0;
+            for (int row = 0; row < rows; row++) {
+                if (remaining == 0) {
+                    try (ResultSet result = nextValue.executeQuery()) {
+                        result.next();
+                        low = result.getLong(1);
+                    }
+                    remaining = ALLOCATION_SIZE;
+                }
+                insert.setLong(1, low++);
+                remaining--;
+                bind(insert, 2, writer, row);
+                insert.addBatch();
+                if ((row + 1) % ALLOCATION_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static double rowsPerSecond(Writer strategy, int writers) throws Exception {
+        int rowsPerWriter = ROWS / writers;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>(writers);
+            long start = System.nanoTime();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+                        connection.setAutoCommit(false);
+                        strategy.write(connection, writer, rowsPerWriter);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return rowsPerWriter * writers / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static long count(String table) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    @Test
+    void pooled_sequence_versus_identity_insert_throughput() throws Exception {
+        // warm-up
+        resetSchema();
+        rowsPerSecond(IdGenerationBenchmarkTest::writeIdentity, 8);
+        rowsPerSecond(IdGenerationBenchmarkTest::writeSequence, 8);
+
+        StringBuilder report = new StringBuilder("Insert throughput over " + ROWS + " rows (rows/s)\n");
+        report.append(String.format("%8s %12s %12s %8s%n", "writers", "IDENTITY", "SEQUENCE", "ratio"));
+        for (int writers : WRITERS) {
+            resetSchema();
+            double identity = rowsPerSecond(IdGenerationBenchmarkTest::writeIdentity, writers);
+            double sequence = rowsPerSecond(IdGenerationBenchmarkTest::writeSequence, writers);
+            report.append(String.format("%8d %12.0f %12.0f %8.2f%n", writers, identity, sequence, sequence / identity));
+
+            assertEquals(ROWS / writers * writers, count("users_identity"));
+            assertEquals(ROWS / writers * writers, count("users_sequence"));
+        }
+        LOGGER.info(report.toString());
+    }
+}
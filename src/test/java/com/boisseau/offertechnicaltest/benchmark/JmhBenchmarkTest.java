@@ -0,0 +1,29 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH benchmarks of this package (classes named *Benchmark), or only those matching -Djmh.include,
+// with the GC profiler (allocation rate, gc.alloc.rate.norm in bytes per call).
+// Results are written as JSON to target/jmh-result.json (-Djmh.result to change), to diff two commits.
+// Run with: mvn test -Pbenchmark -Dtest=JmhBenchmarkTest [-Djmh.include=UserServiceBenchmark]
+@Tag("benchmark")
+class JmhBenchmarkTest {
+
+    @Test
+    void run_jmh_benchmarks() throws RunnerException {
+        String include = System.getProperty("jmh.include", ".*Benchmark");
+        new Runner(new OptionsBuilder()
+                .include(JmhBenchmarkTest.class.getPackageName() + "\\." + include + "\\.")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.result", "target/jmh-result.json"))
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.service.UserGetDetailsService;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// getUserById when every id is unknown, as a scraper walking ids would call it, from 4 threads.
+// getUserById_missing runs with the missing id cache off and on; formerPath is what each probe
+// cost before: a findById, then an exception with its stack trace. Run through JmhBenchmarkTest.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class MissingUserBenchmark {
+
+    private static final int USERS = 1_000;
+    // fits in the default missing id cache
+    private static final int PROBED_IDS = 10_000;
+
+    @Param({ "false", "true" })
+    public boolean missingCache;
+
+    private ConfigurableApplicationContext context;
+    private UserGetDetailsService userGetDetailsService;
+    private UserRepo userRepo;
+
+    private int firstMissingId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:missingbench",
+                        "app.users.missing-cache.enabled=" + missingCache,
+                        "logging.level.root=WARN")
+                .run();
+        UserRegisterService userRegisterService = context.getBean(UserRegisterService.class);
+        userGetDetailsService = context.getBean(UserGetDetailsService.class);
+        userRepo = context.getBean(UserRepo.class);
+
+        UserCreationRequest request =
+                new UserCreationRequest("Jean Valjean", LocalDate.of(1990, 6, 15), "France", null, Gender.MALE);
+        int lastId = 0;
+        for (int i = 0; i < USERS; i++) {
+            lastId = userRegisterService.addUser(request).id();
+        }
+        firstMissingId = lastId + 1_000_000;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private int nextMissingId() {
+        return firstMissingId + (int) (System.nanoTime() % PROBED_IDS);
+    }
+
+    @Benchmark
+    public void getUserById_missing(Blackhole blackhole) {
+        try {
+            blackhole.consume(userGetDetailsService.getUserById(nextMissingId()));
+        } catch (UserNotFoundException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void formerPath(Blackhole blackhole) {
+        int id = nextMissingId();
+        try {
+            blackhole.consume(userRepo.findById(id).orElseThrow(
+                    () -> new IllegalStateException("User not found with id: " + id + ".")));
+        } catch (IllegalStateException e) {
+            blackhole.consume(e);
+        }
+    }
+}
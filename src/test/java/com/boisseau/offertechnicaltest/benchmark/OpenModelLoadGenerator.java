@@ -0,0 +1,243 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays the Postman scenarios at a constant arrival rate (open model): request i is due at start + i / rate
+// whether or not the previous ones have answered, and its latency is measured from that due time.
+// A slow server therefore shows up in the percentiles instead of slowing the generator down (no coordinated omission).
+// At most `concurrency` requests are in flight; a request waiting for a slot is late, and its wait is counted.
+//
+// Each scenario is sent once first, in collection order, like Newman does: the status it gets becomes the expected
+// one and puts it in a category of the mix (create, invalid, get, notfound). Under load, any other status or
+// a transport error is an error. Valid registrations get a new phone number on every call so they stay valid.
+class OpenModelLoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OpenModelLoadGenerator.class);
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    record Settings(double requestsPerSecond, Duration duration, int concurrency, Map<String, Integer> mix) {
+
+        // "create=50,invalid=20,get=25,notfound=5"
+        static Map<String, Integer> parseMix(String mix) {
+            Map<String, Integer> weights = new LinkedHashMap<>();
+            for (String part : mix.split(",")) {
+                String[] weight = part.trim().split("=");
+                weights.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+            }
+            return weights;
+        }
+    }
+
+    record CategoryReport(String category, long requests, long errors, Histogram latencies) {
+    }
+
+    record Report(double requestsPerSecond, long requests, long errors, long maxLateMicros,
+                  Histogram latencies, List<CategoryReport> categories) {
+
+        void print(PrintStream out) {
+            out.printf("%-10s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                    "category", "requests", "errors", "error %", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (CategoryReport category : categories) {
+                line(out, category.category(), category.requests(), category.errors(), category.latencies());
+            }
+            line(out, "total", requests, errors, latencies);
+            out.printf("throughput %.1f req/s, generator at most %.1f ms late%n", requestsPerSecond, maxLateMicros / 1000.0);
+        }
+
+        private static void line(PrintStream out, String name, long requests, long errors, Histogram latencies) {
+            out.printf("%-10s %10d %8d %8.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    name, requests, errors, requests == 0 ? 0 : errors * 100.0 / requests,
+                    latencies.getValueAtPercentile(50) / 1000.0,
+                    latencies.getValueAtPercentile(90) / 1000.0,
+                    latencies.getValueAtPercentile(99) / 1000.0,
+                    latencies.getValueAtPercentile(99.9) / 1000.0,
+                    latencies.getMaxValue() / 1000.0);
+        }
+
+        // one .hgrm percentile distribution per category, plotted with HdrHistogram's plotter
+        void writeDistributions(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            for (CategoryReport category : categories) {
+                write(directory.resolve(category.category() + ".hgrm"), category.latencies());
+            }
+            write(directory.resolve("total.hgrm"), latencies);
+        }
+
+        private static void write(Path file, Histogram histogram) throws IOException {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static final class Category {
+        final String name;
+        final List<PostmanScenarios.Scenario> scenarios = new ArrayList<>();
+        final List<Integer> expectedStatuses = new ArrayList<>();
+        final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        int weight;
+
+        Category(String name) {
+            this.name = name;
+        }
+    }
+
+    private final URI baseUri;
+    private final List<PostmanScenarios.Scenario> scenarios;
+    private final JsonMapper jsonMapper;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    // 8 digits after "06", none used by the collection, with an offset so that two runs against the same database
+    // do not collide
+    private final AtomicLong phoneNumbers = new AtomicLong(10_000_000 + System.nanoTime() % 40_000_000);
+
+    OpenModelLoadGenerator(URI baseUri, List<PostmanScenarios.Scenario> scenarios, JsonMapper jsonMapper) {
+        this.baseUri = baseUri;
+        this.scenarios = scenarios;
+        this.jsonMapper = jsonMapper;
+    }
+
+    private static String category(String method, int status) {
+        boolean success = status >= 200 && status < 300;
+        if ("GET".equals(method)) {
+            return success ? "get" : status == 404 ? "notfound" : null;
+        }
+        return success ? "create" : status >= 400 && status < 500 ? "invalid" : null;
+    }
+
+    private HttpRequest request(PostmanScenarios.Scenario scenario, boolean newPhoneNumber) {
+        String body = scenario.body();
+        if (newPhoneNumber && body != null) {
+            JsonNode json = jsonMapper.readTree(body);
+            if (json instanceof ObjectNode user && user.hasNonNull("phoneNumber")) {
+                user.put("phoneNumber", "06" + phoneNumbers.incrementAndGet());
+                body = jsonMapper.writeValueAsString(user);
+            }
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(scenario.path()))
+                .timeout(Duration.ofSeconds(60));
+        if (body == null) {
+            return request.method(scenario.method(), HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return request.header("Content-Type", "application/json")
+                .method(scenario.method(), HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    // one pass over the collection, in order, to learn what each scenario answers
+    private Map<String, Category> calibrate(Map<String, Integer> mix) throws IOException, InterruptedException {
+        Map<String, Category> categories = new LinkedHashMap<>();
+        for (PostmanScenarios.Scenario scenario : scenarios) {
+            int status = client.send(request(scenario, false), HttpResponse.BodyHandlers.discarding()).statusCode();
+            String name = category(scenario.method(), status);
+            if (name == null) {
+                LOGGER.warn("Scenario \"{}\" answered {}, it is left out", scenario.name(), status);
+                continue;
+            }
+            Category category = categories.computeIfAbsent(name, Category::new);
+            category.scenarios.add(scenario);
+            category.expectedStatuses.add(status);
+        }
+        for (Map.Entry<String, Integer> weight : mix.entrySet()) {
+            Category category = categories.get(weight.getKey());
+            if (category == null) {
+                throw new IllegalArgumentException("No scenario in category " + weight.getKey() + ".");
+            }
+            category.weight = weight.getValue();
+        }
+        categories.values().removeIf(category -> category.weight <= 0);
+        return categories;
+    }
+
+    Report run(Settings settings) throws IOException, InterruptedException {
+        List<Category> categories = new ArrayList<>(calibrate(settings.mix()).values());
+        int totalWeight = categories.stream().mapToInt(category -> category.weight).sum();
+
+        long requests = (long) (settings.requestsPerSecond() * settings.duration().toNanos() / 1e9);
+        double intervalNanos = 1e9 / settings.requestsPerSecond();
+        Semaphore inFlight = new Semaphore(settings.concurrency());
+        CountDownLatch done = new CountDownLatch((int) requests);
+        Histogram total = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        AtomicLong errors = new AtomicLong();
+        long maxLate = 0;
+        SplittableRandom random = new SplittableRandom(42);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long due = start + (long) (i * intervalNanos);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            maxLate = Math.max(maxLate, System.nanoTime() - due);
+
+            int pick = random.nextInt(totalWeight);
+            Category category = categories.get(0);
+            for (Category candidate : categories) {
+                category = candidate;
+                pick -= candidate.weight;
+                if (pick < 0) {
+                    break;
+                }
+            }
+            int index = random.nextInt(category.scenarios.size());
+            int expectedStatus = category.expectedStatuses.get(index);
+            HttpRequest request = request(category.scenarios.get(index), "create".equals(category.name));
+
+            Category chosen = category;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                // from the due time, not from the send time
+                long latency = Math.min((System.nanoTime() - due) / 1000, MAX_LATENCY_MICROS);
+                chosen.latencies.recordValue(latency);
+                total.recordValue(latency);
+                chosen.requests.incrementAndGet();
+                if (error != null || response.statusCode() != expectedStatus) {
+                    chosen.errors.incrementAndGet();
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<CategoryReport> reports = new ArrayList<>();
+        for (Category category : categories) {
+            reports.add(new CategoryReport(category.name, category.requests.get(), category.errors.get(), category.latencies));
+        }
+        return new Report(requests / seconds, requests, errors.get(), maxLate / 1000, total, reports);
+    }
+}
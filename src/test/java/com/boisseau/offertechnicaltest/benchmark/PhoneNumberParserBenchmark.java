@@ -0,0 +1,38 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.validation.PhoneNumbers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Former regex check versus PhoneNumbers.toKey(), run through JmhBenchmarkTest
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneNumberParserBenchmark {
+
+    private static final Pattern FRENCH_NUMBER = Pattern.compile("^((\\+)33|0)[1-9](\\d{2}){4}$");
+
+    @Param({ "06 12 34 56 78", "+33612345678", "06AB345678" })
+    public String phoneNumber;
+
+    // what verifyUserPhoneNumber used to do on every request
+    @Benchmark
+    public boolean regex() {
+        return phoneNumber.replace(" ", "").matches("^((\\+)33|0)[1-9](\\d{2}){4}$");
+    }
+
+    @Benchmark
+    public boolean precompiledRegex() {
+        return FRENCH_NUMBER.matcher(phoneNumber.replace(" ", "")).matches();
+    }
+
+    @Benchmark
+    public long parser() {
+        return PhoneNumbers.toKey(phoneNumber);
+    }
+}
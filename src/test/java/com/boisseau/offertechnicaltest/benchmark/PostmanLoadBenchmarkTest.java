@@ -0,0 +1,75 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Replays src/main/resources/postman_collection.json with OpenModelLoadGenerator against an application started on
+// a random port, or against -Dload.baseUrl when it is set (start that one on an empty database).
+// Settings: -Dload.rate (requests per second), -Dload.duration (seconds), -Dload.concurrency (requests in flight),
+// -Dload.mix (weights per category). Percentile distributions are written to target/load.
+// Run with: mvn test -Pbenchmark -Dtest=PostmanLoadBenchmarkTest -Dload.rate=2000 -Dload.duration=60
+@Tag("benchmark")
+class PostmanLoadBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostmanLoadBenchmarkTest.class);
+
+    @Test
+    void replay_postman_scenarios_at_a_constant_rate() throws Exception {
+        OpenModelLoadGenerator.Settings settings = new OpenModelLoadGenerator.Settings(
+                Double.parseDouble(System.getProperty("load.rate", "500")),
+                Duration.ofSeconds(Long.parseLong(System.getProperty("load.duration", "30"))),
+                Integer.parseInt(System.getProperty("load.concurrency", "256")),
+                OpenModelLoadGenerator.Settings.parseMix(
+                        System.getProperty("load.mix", "create=50,invalid=20,get=25,notfound=5")));
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        List<PostmanScenarios.Scenario> scenarios =
+                PostmanScenarios.read(Path.of("src/main/resources/postman_collection.json"), jsonMapper);
+        assertFalse(scenarios.isEmpty());
+
+        String baseUrl = System.getProperty("load.baseUrl");
+        ConfigurableApplicationContext context = null;
+        if (baseUrl == null) {
+            context = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.datasource.url=jdbc:h2:mem:postmanload",
+                            "logging.level.com.boisseau.offertechnicaltest.aop=WARN")
+                    .run();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        OpenModelLoadGenerator.Report report;
+        try {
+            report = new OpenModelLoadGenerator(URI.create(baseUrl), scenarios, jsonMapper).run(settings);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+
+        ByteArrayOutputStream table = new ByteArrayOutputStream();
+        report.print(new PrintStream(table, true));
+        LOGGER.info("Postman scenarios at {} req/s for {}, {} in flight at most:\n{}",
+                settings.requestsPerSecond(), settings.duration(), settings.concurrency(), table);
+        report.writeDistributions(Path.of("target/load"));
+
+        assertEquals(settings.requestsPerSecond() * settings.duration().toSeconds(), report.requests(), 1);
+        assertEquals(0, report.errors(), "requests answered with another status than during calibration");
+    }
+}
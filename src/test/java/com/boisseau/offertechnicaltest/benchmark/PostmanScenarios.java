@@ -0,0 +1,45 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// The requests of a Postman v2.1 collection, folders flattened, in collection order.
+final class PostmanScenarios {
+
+    record Scenario(String name, String method, String path, String body) {
+    }
+
+    private PostmanScenarios() {
+    }
+
+    static List<Scenario> read(Path collection, JsonMapper jsonMapper) {
+        List<Scenario> scenarios = new ArrayList<>();
+        collect(jsonMapper.readTree(collection.toFile()).path("item"), scenarios);
+        return scenarios;
+    }
+
+    private static void collect(JsonNode items, List<Scenario> scenarios) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collect(item.get("item"), scenarios);
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            // only the path is kept, the requests go to the application under test
+            URI uri = URI.create(url.isObject() ? url.path("raw").asString() : url.asString());
+            String path = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+            JsonNode body = request.path("body").path("raw");
+            scenarios.add(new Scenario(
+                    item.path("name").asString(),
+                    request.path("method").asString(),
+                    path,
+                    body.isMissingNode() ? null : body.asString()));
+        }
+    }
+}
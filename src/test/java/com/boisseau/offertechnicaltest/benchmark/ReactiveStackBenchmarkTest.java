@@ -0,0 +1,136 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Starts the application on the servlet stack (Tomcat + JDBC), then on the "reactive" profile (Netty + R2DBC),
+// and keeps 2,000 registrations in flight against POST /api/users on each.
+// While the load runs, samples the live thread count, the database connections in use and the used heap.
+// Run with: mvn test -Pbenchmark -Dtest=ReactiveStackBenchmarkTest
+@Tag("benchmark")
+class ReactiveStackBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveStackBenchmarkTest.class);
+
+    private static final int CLIENTS = 2_000;
+    private static final int REQUESTS = 40_000;
+
+    private record Result(double requestsPerSecond, int peakThreads, int peakConnections, long peakHeapMiB, int errors) {
+    }
+
+    private static ConfigurableApplicationContext start(boolean reactive) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:stackbench",
+                        "app.reactive.r2dbc.url=r2dbc:h2:mem:///stackbench",
+                        "server.tomcat.max-connections=5000",
+                        "server.tomcat.accept-count=5000",
+                        "logging.level.com.boisseau.offertechnicaltest.aop=WARN");
+        if (reactive) {
+            builder.profiles("reactive");
+        }
+        return builder.run();
+    }
+
+    // connections currently handed out by the pool the requests use
+    private static IntSupplier connectionsInUse(ConfigurableApplicationContext context, boolean reactive) {
+        if (reactive) {
+            ConnectionPool pool = context.getBean(ConnectionPool.class);
+            return () -> pool.getMetrics().map(metrics -> metrics.acquiredSize()).orElse(0);
+        }
+        try {
+            HikariDataSource dataSource = context.getBean(DataSource.class).unwrap(HikariDataSource.class);
+            return () -> dataSource.getHikariPoolMXBean().getActiveConnections();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Result run(boolean reactive) throws InterruptedException {
+        try (ConfigurableApplicationContext context = start(reactive)) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            URI uri = URI.create("http://localhost:" + port + "/api/users");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            IntSupplier connections = connectionsInUse(context, reactive);
+
+            AtomicInteger peakThreads = new AtomicInteger();
+            AtomicInteger peakConnections = new AtomicInteger();
+            AtomicInteger peakHeapMiB = new AtomicInteger();
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> {
+                peakThreads.accumulateAndGet(ManagementFactory.getThreadMXBean().getThreadCount(), Math::max);
+                peakConnections.accumulateAndGet(connections.getAsInt(), Math::max);
+                long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+                peakHeapMiB.accumulateAndGet((int) heap, Math::max);
+            }, 0, 10, TimeUnit.MILLISECONDS);
+
+            AtomicInteger errors = new AtomicInteger();
+            Semaphore inFlight = new Semaphore(CLIENTS);
+            CountDownLatch done = new CountDownLatch(REQUESTS);
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                inFlight.acquire();
+                String body = """
+                    {"name": "User %d", "birthdate": "1990-01-01", "countryOfResidence": "France", "gender": "Other"}
+                    """.formatted(i);
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                    if (error != null || response.statusCode() != 201) {
+                        errors.incrementAndGet();
+                    }
+                    inFlight.release();
+                    done.countDown();
+                });
+            }
+            done.await();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            sampler.shutdownNow();
+
+            return new Result(REQUESTS / seconds, peakThreads.get(), peakConnections.get(), peakHeapMiB.get(), errors.get());
+        }
+    }
+
+    @Test
+    void servlet_and_reactive_stacks_under_2000_concurrent_registrations() throws InterruptedException {
+        Result servlet = run(false);
+        Result reactive = run(true);
+
+        LOGGER.info("servlet:  {} req/s, {} threads, {} connections in use, {} MiB heap, {} errors",
+                String.format("%.0f", servlet.requestsPerSecond()), servlet.peakThreads(),
+                servlet.peakConnections(), servlet.peakHeapMiB(), servlet.errors());
+        LOGGER.info("reactive: {} req/s, {} threads, {} connections in use, {} MiB heap, {} errors",
+                String.format("%.0f", reactive.requestsPerSecond()), reactive.peakThreads(),
+                reactive.peakConnections(), reactive.peakHeapMiB(), reactive.errors());
+
+        assertEquals(0, servlet.errors());
+        assertEquals(0, reactive.errors());
+    }
+}
@@ -0,0 +1,101 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.service.UserBatchRegisterService;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -Pbenchmark
+@Tag("benchmark")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class RegistrationThroughputBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationThroughputBenchmarkTest.class);
+
+    private static final int ROWS = 5_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private UserRegisterService userRegisterService;
+
+    @Autowired
+    private UserBatchRegisterService userBatchRegisterService;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @BeforeEach
+    void setup() {
+        userRepo.deleteAll();
+    }
+
+    private static List<UserCreationRequest> requests(int offset, int count) {
+        List<UserCreationRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new UserCreationRequest(
+                    "User " + (offset + i),
+                    LocalDate.of(1990, 1, 1),
+                    "France",
+                    String.format("06%08d", offset + i),
+                    Gender.OTHER));
+        }
+        return requests;
+    }
+
+    private double singleRowsPerSecond(List<UserCreationRequest> requests) {
+        long start = System.nanoTime();
+        for (UserCreationRequest request : requests) {
+            userRegisterService.addUser(request);
+        }
+        return requests.size() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private double batchRowsPerSecond(List<UserCreationRequest> requests) {
+        long start = System.nanoTime();
+        for (int from = 0; from < requests.size(); from += BATCH_SIZE) {
+            userBatchRegisterService.addUsers(requests.subList(from, Math.min(from + BATCH_SIZE, requests.size())));
+        }
+        return requests.size() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    @Test
+    void batch_path_inserts_more_rows_per_second_than_single_row_path() {
+        // warm-up
+        singleRowsPerSecond(requests(0, ROWS / 5));
+        batchRowsPerSecond(requests(ROWS, ROWS / 5));
+        userRepo.deleteAll();
+
+        double single = singleRowsPerSecond(requests(0, ROWS));
+        userRepo.deleteAll();
+        double batch = batchRowsPerSecond(requests(0, ROWS));
+
+        LOGGER.info("Registration throughput over {} rows: single row path {} rows/s, batch path {} rows/s (x{})",
+                ROWS,
+                String.format("%.0f", single),
+                String.format("%.0f", batch),
+                String.format("%.1f", batch / single));
+
+        assertEquals(ROWS, userRepo.count());
+        assertTrue(batch > single);
+    }
+}
@@ -0,0 +1,80 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Time to ready on an existing database file, with the schema handled by Hibernate (ddl-auto=update, which reads
+// the metadata of every table, column, index and sequence on each boot) and by Flyway (one read of
+// flyway_schema_history, Hibernate told not to look at the database at all).
+// Both start on the same up-to-date file, alternately, so that neither gets a warmer JVM or file cache.
+// Run with: mvn test -Pbenchmark -Dtest=SchemaStartupBenchmarkTest
+@Tag("benchmark")
+class SchemaStartupBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaStartupBenchmarkTest.class);
+
+    private static final int STARTS = 7;
+    private static final Path FILE = Path.of("target", "schema-bench", "boisseau");
+
+    private static final String[] HIBERNATE = {
+            "--spring.flyway.enabled=false",
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=true"
+    };
+    private static final String[] FLYWAY = {};
+
+    private static long startMillis(String... schemaArguments) {
+        String[] arguments = Arrays.copyOf(new String[] {
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:file:" + FILE.toAbsolutePath() + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--logging.level.root=WARN",
+                "--logging.level.com.boisseau.offertechnicaltest.benchmark=INFO"
+        }, 4 + schemaArguments.length);
+        System.arraycopy(schemaArguments, 0, arguments, 4, schemaArguments.length);
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .run(arguments)) {
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    @Test
+    void flyway_startup_versus_ddl_auto_update() {
+        // creates the schema, then one warm-up start each
+        startMillis(FLYWAY);
+        startMillis(HIBERNATE);
+        startMillis(FLYWAY);
+
+        long[] hibernate = new long[STARTS];
+        long[] flyway = new long[STARTS];
+        for (int i = 0; i < STARTS; i++) {
+            hibernate[i] = startMillis(HIBERNATE);
+            flyway[i] = startMillis(FLYWAY);
+        }
+
+        LOGGER.info("Time to ready over {} starts (ms): ddl-auto=update median {} min {}, Flyway median {} min {}",
+                STARTS,
+                median(hibernate), Arrays.stream(hibernate).min().orElseThrow(),
+                median(flyway), Arrays.stream(flyway).min().orElseThrow());
+
+        assertTrue(median(flyway) <= median(hibernate) * 11 / 10,
+                "Flyway start " + median(flyway) + " ms, ddl-auto=update start " + median(hibernate) + " ms");
+    }
+}
@@ -0,0 +1,75 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.service.UserGetDetailsService;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Service throughput with the call logging off, sampled (the default 1%) and on for every call,
+// from 4 threads. Run through JmhBenchmarkTest.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ServiceCallLoggingBenchmark {
+
+    private static final int USERS = 1_000;
+
+    @Param({ "off", "sampled", "all" })
+    public String logging;
+
+    private ConfigurableApplicationContext context;
+    private UserRegisterService userRegisterService;
+    private UserGetDetailsService userGetDetailsService;
+
+    private final UserCreationRequest request =
+            new UserCreationRequest("Jean Valjean", LocalDate.of(1990, 6, 15), "France", null, Gender.MALE);
+    private int firstId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:loggingbench",
+                        "app.logging.service-calls.enabled=" + !"off".equals(logging),
+                        "app.logging.service-calls.sample-rate=" + ("all".equals(logging) ? "1" : "0.01"),
+                        "app.logging.service-calls.sample-rates=")
+                .run();
+        userRegisterService = context.getBean(UserRegisterService.class);
+        userGetDetailsService = context.getBean(UserGetDetailsService.class);
+
+        firstId = userRegisterService.addUser(request).id();
+        for (int i = 1; i < USERS; i++) {
+            userRegisterService.addUser(request);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse addUser() {
+        return userRegisterService.addUser(request);
+    }
+
+    // served by the user cache, so the logging is most of the work
+    @Benchmark
+    public UserResponse getUserById() {
+        return userGetDetailsService.getUserById(firstId + (int) (System.nanoTime() & 0xff));
+    }
+}
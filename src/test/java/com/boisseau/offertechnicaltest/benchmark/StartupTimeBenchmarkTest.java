@@ -0,0 +1,156 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Time-to-ready of the "persistent" profile on a database file that already holds 1M, 10M and 50M users:
+// from SpringApplication.run() to the context being ready to serve, and until the phone number filter is built.
+// Each size is started with the filter built in the background (the profile default) and at startup, for comparison.
+// The files are generated once in target/startup-bench and reused by later runs (50M users take a few GiB).
+// Run with: mvn test -Pbenchmark -Dtest=StartupTimeBenchmarkTest [-Dstartup.users=1000000,10000000,50000000]
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimeBenchmarkTest.class);
+
+    private static final long[] USERS = Arrays.stream(System.getProperty("startup.users", "1000000,10000000,50000000").split(","))
+            .mapToLong(Long::parseLong)
+            .toArray();
+    private static final int RESTARTS = 3;
+    private static final int FILL_CHUNK = 1_000_000;
+    private static final Path DIRECTORY = Path.of("target", "startup-bench");
+
+    private record Startup(long readyMillis, long filterMillis) {
+    }
+
+    private static String jdbcUrl(Path file) {
+        return "jdbc:h2:file:" + file.toAbsolutePath() + ";LAZY_QUERY_EXECUTION=TRUE;CACHE_SIZE=262144;WRITE_DELAY=500;DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    private static ConfigurableApplicationContext start(Path file, boolean filterInBackground) {
+        return new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .profiles("persistent")
+                // command line arguments, so that they win over application-persistent.properties
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + jdbcUrl(file),
+                        "--app.users.phone-filter.build-in-background=" + filterInBackground,
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.boisseau.offertechnicaltest.benchmark=INFO");
+    }
+
+    private static long count(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM users")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    // one boot on an empty file lets Flyway create the schema, the rows are then added with plain SQL
+    private static Path prepare(long users) throws SQLException {
+        Path file = DIRECTORY.resolve("users-" + users);
+        if (!Files.exists(DIRECTORY.resolve("users-" + users + ".mv.db"))) {
+            start(file, true).close();
+        }
+        try (Connection connection = DriverManager.getConnection(jdbcUrl(file), "sa", "")) {
+            long existing = count(connection);
+            if (existing == users) {
+                return file;
+            }
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM users");
+            }
+            connection.commit();
+            // ids and phone keys follow X, the sequence is moved past them by UserIdSequenceInitializer
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+                            + "SELECT X, 'User ' || X, DATEADD('DAY', -MOD(X, 20000), DATE '2005-01-01'), 'France', "
+                            + "'06' || LPAD(CAST(X AS VARCHAR), 8, '0'), 33600000000 + X, "
+                            + "CASEWHEN(MOD(X, 2) = 0, 'FEMALE', 'MALE') FROM SYSTEM_RANGE(?, ?)")) {
+                for (long from = 1; from <= users; from += FILL_CHUNK) {
+                    insert.setLong(1, from);
+                    insert.setLong(2, Math.min(users, from + FILL_CHUNK - 1));
+                    insert.executeUpdate();
+                    connection.commit();
+                }
+            }
+            assertEquals(users, count(connection));
+        }
+        return file;
+    }
+
+    private static Startup measure(Path file, boolean filterInBackground) throws InterruptedException {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start(file, filterInBackground)) {
+            long ready = System.nanoTime();
+            PhoneNumberFilter phoneNumberFilter = context.getBean(PhoneNumberFilter.class);
+            while (phoneNumberFilter.getStats().rebuilds() == 0) {
+                Thread.sleep(10);
+            }
+            long filterBuilt = System.nanoTime();
+            return new Startup((ready - start) / 1_000_000, (filterBuilt - start) / 1_000_000);
+        }
+    }
+
+    // best of RESTARTS, after one discarded start that warms the JVM and the OS file cache
+    private static Startup best(Path file, boolean filterInBackground) throws InterruptedException {
+        measure(file, filterInBackground);
+        Startup best = null;
+        for (int i = 0; i < RESTARTS; i++) {
+            Startup startup = measure(file, filterInBackground);
+            if (best == null || startup.readyMillis() < best.readyMillis()) {
+                best = startup;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void time_to_ready_does_not_grow_with_the_users_table() throws Exception {
+        Files.createDirectories(DIRECTORY);
+
+        StringBuilder report = new StringBuilder("Time to ready of the persistent profile (ms, best of " + RESTARTS + ")\n");
+        report.append(String.format("%12s %10s %14s %14s %26s%n",
+                "users", "file MiB", "ready", "filter built", "ready, filter at startup"));
+        long smallestReady = -1;
+        long largestReady = -1;
+        for (long users : USERS) {
+            Path file = prepare(users);
+            long fileMiB = Files.size(DIRECTORY.resolve(file.getFileName() + ".mv.db")) >> 20;
+
+            Startup background = best(file, true);
+            Startup blocking = best(file, false);
+            report.append(String.format("%12d %10d %14d %14d %26d%n",
+                    users, fileMiB, background.readyMillis(), background.filterMillis(), blocking.readyMillis()));
+
+            if (smallestReady < 0) {
+                smallestReady = background.readyMillis();
+            }
+            largestReady = background.readyMillis();
+        }
+        LOGGER.info(report.toString());
+
+        // the boot itself reads no table: a database fifty times larger may not double it
+        assertTrue(largestReady < 2 * smallestReady + 1_000,
+                "ready in " + largestReady + " ms on the largest database, " + smallestReady + " ms on the smallest");
+    }
+}
@@ -0,0 +1,114 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.service.UserExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Exports a few million synthetic users into a stream that only counts lines, and samples the
+// heap left after a full GC along the way: it must not grow with the number of rows exported.
+// The in-memory H2 table itself lives on the same heap, so the heap is capped just above what the table needs:
+// loading the users in a list instead of streaming them would not fit.
+// Run with: mvn test -Pbenchmark -Dtest=UserExportMemoryBenchmarkTest -DargLine=-Xmx1g [-Dexport.rows=...]
+@Tag("benchmark")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserExportMemoryBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserExportMemoryBenchmarkTest.class);
+
+    private static final int ROWS = Integer.getInteger("export.rows", 3_000_000);
+    private static final int SAMPLE_EVERY = ROWS / 10;
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // userRepo.deleteAll() would load every row, plain SQL on both ends
+    @BeforeEach
+    void setup() {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, gender) "
+                + "SELECT NEXT VALUE FOR users_seq, 'User ' || X, DATE '1990-01-01', 'France', 'OTHER' "
+                + "FROM SYSTEM_RANGE(1, ?)", ROWS);
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    // counts lines, samples the heap every SAMPLE_EVERY lines
+    private static final class SamplingOutputStream extends OutputStream {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private long lines;
+        private long firstSample = -1;
+        private long maxSample;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % SAMPLE_EVERY == 0) {
+                sample();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        private void sample() {
+            System.gc();
+            long used = memory.getHeapMemoryUsage().getUsed();
+            if (firstSample < 0) {
+                firstSample = used;
+            }
+            maxSample = Math.max(maxSample, used);
+        }
+    }
+
+    @Test
+    void export_heap_stays_flat_whatever_the_number_of_rows() {
+        SamplingOutputStream out = new SamplingOutputStream();
+
+        long start = System.nanoTime();
+        long exported = userExportService.exportTo(out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long growth = out.maxSample - out.firstSample;
+        LOGGER.info("Exported {} users in {} s ({} rows/s), heap after GC from {} MiB to at most {} MiB (+{} KiB)",
+                exported,
+                String.format("%.1f", seconds),
+                String.format("%.0f", exported / seconds),
+                out.firstSample / (1024 * 1024),
+                out.maxSample / (1024 * 1024),
+                growth / 1024);
+
+        assertEquals(ROWS, exported);
+        assertEquals(ROWS, out.lines);
+        assertTrue(growth < MAX_HEAP_GROWTH, "heap grew by " + growth / 1024 + " KiB during the export");
+    }
+}
@@ -0,0 +1,62 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// User to UserResponse mapping, and the Jackson work of one registration: request in, response out.
+// Run through JmhBenchmarkTest.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserJsonBenchmark {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private final User user = User.builder()
+            .id(42)
+            .name("Jean Valjean")
+            .birthdate(LocalDate.of(1990, 6, 15))
+            .countryOfResidence("France")
+            .phoneNumber("06 12 34 56 78")
+            .phoneKey(33612345678L)
+            .gender(Gender.MALE)
+            .build();
+
+    private final UserResponse response = UserResponse.from(user);
+
+    private final String requestJson = """
+            {"name":"Jean Valjean","birthdate":"1990-06-15","countryOfResidence":"France",\
+            "phoneNumber":"06 12 34 56 78","gender":"Male"}""";
+
+    private final String responseJson = jsonMapper.writeValueAsString(response);
+
+    @Benchmark
+    public UserResponse mapUserToResponse() {
+        return UserResponse.from(user);
+    }
+
+    @Benchmark
+    public UserCreationRequest readUserCreationRequest() {
+        return jsonMapper.readValue(requestJson, UserCreationRequest.class);
+    }
+
+    @Benchmark
+    public String writeUserResponse() {
+        return jsonMapper.writeValueAsString(response);
+    }
+
+    @Benchmark
+    public UserResponse readUserResponse() {
+        return jsonMapper.readValue(responseJson, UserResponse.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.service.UserGetDetailsService;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Full addUser and getUserById calls, aspects and in-memory H2 included, without the web layer.
+// Run through JmhBenchmarkTest.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int USERS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private UserRegisterService userRegisterService;
+    private UserGetDetailsService userGetDetailsService;
+    private UserResponseCache userResponseCache;
+
+    private final UserCreationRequest request =
+            new UserCreationRequest("Jean Valjean", LocalDate.of(1990, 6, 15), "France", null, Gender.MALE);
+    private int[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:servicebench",
+                        "logging.level.root=WARN")
+                .run();
+        userRegisterService = context.getBean(UserRegisterService.class);
+        userGetDetailsService = context.getBean(UserGetDetailsService.class);
+        userResponseCache = context.getBean(UserResponseCache.class);
+
+        ids = new int[USERS];
+        for (int i = 0; i < USERS; i++) {
+            ids[i] = userRegisterService.addUser(request).id();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    private int nextId() {
+        next = (next + 1) % USERS;
+        return ids[next];
+    }
+
+    // no phone number: every call inserts a row
+    @Benchmark
+    public UserResponse addUser() {
+        return userRegisterService.addUser(request);
+    }
+
+    @Benchmark
+    public UserResponse getUserById_cached() {
+        return userGetDetailsService.getUserById(nextId());
+    }
+
+    @Benchmark
+    public UserResponse getUserById_fromDatabase() {
+        int id = nextId();
+        userResponseCache.invalidate(id);
+        return userGetDetailsService.getUserById(id);
+    }
+}
@@ -0,0 +1,116 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserSnapshotResponse;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import com.boisseau.offertechnicaltest.service.UserSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Snapshot and restore of several million users on the in-memory H2, against registering users one by one
+// through UserRegisterService, which is what a restart without a snapshot comes down to.
+// The registrations are timed on REPLAYED users only, their rate is what would be needed for the whole table.
+// The in-memory table lives on the heap: give it room.
+// Run with: mvn test -Pbenchmark -Dtest=UserSnapshotBenchmarkTest -DargLine=-Xmx4g [-Dsnapshot.rows=1000000,3000000,5000000]
+@Tag("benchmark")
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserSnapshotBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserSnapshotBenchmarkTest.class);
+
+    private static final long[] ROWS = Arrays.stream(System.getProperty("snapshot.rows", "1000000,3000000,5000000").split(","))
+            .mapToLong(Long::parseLong)
+            .toArray();
+    private static final int REPLAYED = 20_000;
+    private static final Path DIRECTORY = Path.of("target", "snapshot-bench");
+
+    @Autowired
+    private UserSnapshotService userSnapshotService;
+
+    @Autowired
+    private UserRegisterService userRegisterService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // userRepo.deleteAll() would load every row, plain SQL on both ends
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    private void fill(long rows) {
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+                + "SELECT X, 'User ' || X, DATEADD('DAY', -MOD(X, 20000), DATE '2005-01-01'), 'France', "
+                + "'06' || LPAD(CAST(X AS VARCHAR), 8, '0'), 33600000000 + X, "
+                + "CASEWHEN(MOD(X, 3) = 0, NULL, CASEWHEN(MOD(X, 3) = 1, 'FEMALE', 'MALE')) FROM SYSTEM_RANGE(1, ?)", rows);
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    // users per second through the service, each in its own transaction with every rule checked
+    private double registrationRate() {
+        jdbcTemplate.update("DELETE FROM users");
+        long start = System.nanoTime();
+        for (int i = 0; i < REPLAYED; i++) {
+            userRegisterService.addUser(new UserCreationRequest("User " + i, LocalDate.of(1990, 1, 1), "France",
+                    String.format("07%08d", i), Gender.OTHER));
+        }
+        return REPLAYED * 1e9 / (System.nanoTime() - start);
+    }
+
+    @Test
+    void restore_is_much_faster_than_registering_again() throws Exception {
+        Files.createDirectories(DIRECTORY);
+        registrationRate();
+        double registered = registrationRate();
+
+        StringBuilder report = new StringBuilder("Snapshot and restore of the users table\n");
+        report.append(String.format("%10s %9s %12s %14s %12s %14s %14s%n",
+                "users", "file MiB", "snapshot ms", "snapshot rows/s", "restore ms", "restore rows/s", "register rows/s"));
+        double slowestRestore = Double.MAX_VALUE;
+        for (long rows : ROWS) {
+            fill(rows);
+            Path file = DIRECTORY.resolve("users-" + rows + ".snapshot");
+
+            UserSnapshotResponse snapshot = userSnapshotService.snapshot(file);
+            jdbcTemplate.update("DELETE FROM users");
+            UserSnapshotResponse restored = userSnapshotService.restore(file);
+
+            assertEquals(rows, snapshot.users());
+            assertEquals(rows, restored.users());
+            assertEquals(rows, count());
+            report.append(String.format("%10d %9d %12d %14.0f %12d %14.0f %14.0f%n",
+                    rows, snapshot.bytes() >> 20, snapshot.durationMillis(), snapshot.rowsPerSecond(),
+                    restored.durationMillis(), restored.rowsPerSecond(), registered));
+            slowestRestore = Math.min(slowestRestore, restored.rowsPerSecond());
+        }
+        LOGGER.info(report.toString());
+
+        assertTrue(slowestRestore > 10 * registered,
+                "restore at " + Math.round(slowestRestore) + " rows/s, registrations at " + Math.round(registered) + " rows/s");
+    }
+}
@@ -0,0 +1,82 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.validation.Country;
+import com.boisseau.offertechnicaltest.validation.CountryTable;
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import com.boisseau.offertechnicaltest.validation.ValidationResult;
+import com.boisseau.offertechnicaltest.validation.Violation;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// The rules of UserRules one by one, and validate() as addUser runs them, run through JmhBenchmarkTest
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserValidationBenchmark {
+
+    private CountryTable countries;
+    private Country france;
+
+    private final String name = "Jean Valjean";
+    private final LocalDate birthdate = LocalDate.of(1990, 6, 15);
+    private final String countryOfResidence = "France";
+    private final String phoneNumber = "06 12 34 56 78";
+
+    private final UserCreationRequest valid = new UserCreationRequest(name, birthdate, countryOfResidence, phoneNumber, Gender.MALE);
+    // every field fails a rule
+    private final UserCreationRequest invalid = new UserCreationRequest(" ", LocalDate.of(2100, 1, 1), "Belgium", "07 12", Gender.MALE);
+
+    @Setup(Level.Trial)
+    public void loadCountries() throws IOException {
+        try (InputStream in = UserValidationBenchmark.class.getResourceAsStream("/countries.csv")) {
+            countries = CountryTable.parse(in);
+        }
+        france = countries.resolve("FR");
+    }
+
+    @Benchmark
+    public Violation checkName() {
+        return UserRules.check(UserRules.NAME, name);
+    }
+
+    @Benchmark
+    public Violation checkBirthdate() {
+        return UserRules.checkBirthdate(birthdate, france);
+    }
+
+    @Benchmark
+    public Violation checkCountryOfResidence() {
+        return UserRules.checkCountryOfResidence(countryOfResidence, countries);
+    }
+
+    // the country lookup alone, a mixed-case alias
+    @Benchmark
+    public Country resolveCountry() {
+        return countries.resolve("r\u00e9publique fran\u00e7aise");
+    }
+
+    @Benchmark
+    public Violation checkPhoneNumber() {
+        return UserRules.checkPhoneNumber(phoneNumber, france);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return UserRules.validate(valid, countries);
+    }
+
+    // four violations collected, nothing thrown
+    @Benchmark
+    public ValidationResult validate_rejected() {
+        return UserRules.validate(invalid, countries);
+    }
+}
@@ -0,0 +1,170 @@
+package com.boisseau.offertechnicaltest.benchmark;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.service.UserBatchRegisterService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Starts the application on a random port, once on the Tomcat platform thread pool and once on virtual threads
+// (profile "virtual", with the database admission gate), and keeps 100, 1,000 then 10,000 requests in flight
+// against each of: POST /api/users (registration), GET /api/user/{id} (details, mostly from the user cache) and
+// GET /api/users (a page read from the database on every call).
+// 10,000 clients need as many sockets: raise the open file limit (ulimit -n) first.
+// Run with: mvn test -Pbenchmark -Dtest=VirtualThreadLoadBenchmarkTest (Java 21+)
+@Tag("benchmark")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadLoadBenchmarkTest.class);
+
+    private static final int[] CLIENTS = { 100, 1_000, 10_000 };
+    private static final int MIN_REQUESTS = 20_000;
+    private static final int USERS = 1_000;
+
+    private static final String[] ENDPOINTS = { "POST /api/users", "GET /api/user/{id}", "GET /api/users" };
+
+    private record Result(int clients, double requestsPerSecond, double p99Millis, int errors) {
+    }
+
+    private record Endpoint(IntFunction<HttpRequest> request, int expectedStatus) {
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtualThreads) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadbench",
+                        "server.tomcat.max-connections=20000",
+                        "server.tomcat.accept-count=10000",
+                        "logging.level.com.boisseau.offertechnicaltest.aop=WARN");
+        if (virtualThreads) {
+            builder.profiles("virtual");
+        }
+        ConfigurableApplicationContext context = builder.run();
+
+        List<UserCreationRequest> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(new UserCreationRequest("User " + i, LocalDate.of(1990, 1, 1), "France", null, Gender.OTHER));
+        }
+        context.getBean(UserBatchRegisterService.class).addUsers(users);
+        return context;
+    }
+
+    // the registered users have no phone number, so that every one of them is accepted
+    private static Map<String, Endpoint> endpoints(String base, int[] ids) {
+        return Map.of(
+                ENDPOINTS[0], new Endpoint(i -> HttpRequest.newBuilder(URI.create(base + "/api/users"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"name\":\"Load " + i + "\",\"birthdate\":\"1990-01-01\",\"countryOfResidence\":\"France\"}"))
+                        .build(), 201),
+                ENDPOINTS[1], new Endpoint(i -> HttpRequest.newBuilder(URI.create(base + "/api/user/" + ids[i % ids.length]))
+                        .GET().build(), 200),
+                ENDPOINTS[2], new Endpoint(i -> HttpRequest.newBuilder(URI.create(base + "/api/users?size=20"))
+                        .GET().build(), 200));
+    }
+
+    private static Result load(HttpClient client, Endpoint endpoint, int clients) throws InterruptedException {
+        int requests = Math.max(MIN_REQUESTS, clients * 5);
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(clients);
+        CountDownLatch done = new CountDownLatch(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            client.sendAsync(endpoint.request().apply(index), HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - sent;
+                if (error != null || response.statusCode() != endpoint.expectedStatus()) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        double p99 = latencies[(int) Math.ceil(requests * 0.99) - 1] / 1e6;
+        return new Result(clients, requests / seconds, p99, errors.get());
+    }
+
+    // results by endpoint, one per number of clients
+    private static Map<String, List<Result>> run(boolean virtualThreads) throws InterruptedException {
+        Map<String, List<Result>> results = new LinkedHashMap<>();
+        try (ConfigurableApplicationContext context = start(virtualThreads)) {
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            int[] ids = registeredIds(context);
+            Map<String, Endpoint> endpoints = endpoints(base, ids);
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            for (String name : ENDPOINTS) {
+                Endpoint endpoint = endpoints.get(name);
+                // warm-up
+                load(client, endpoint, CLIENTS[0]);
+                List<Result> endpointResults = new ArrayList<>();
+                for (int clients : CLIENTS) {
+                    endpointResults.add(load(client, endpoint, clients));
+                }
+                results.put(name, endpointResults);
+            }
+        }
+        return results;
+    }
+
+    private static int[] registeredIds(ConfigurableApplicationContext context) {
+        return context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM users", Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    @Test
+    void platform_and_virtual_threads_under_increasing_concurrency() throws InterruptedException {
+        Map<String, List<Result>> platform = run(false);
+        Map<String, List<Result>> virtual = run(true);
+
+        for (String endpoint : ENDPOINTS) {
+            for (int i = 0; i < CLIENTS.length; i++) {
+                Result p = platform.get(endpoint).get(i);
+                Result v = virtual.get(endpoint).get(i);
+                LOGGER.info("{}, {} clients: platform {} req/s, p99 {} ms, {} errors | virtual {} req/s, p99 {} ms, {} errors",
+                        endpoint, CLIENTS[i],
+                        String.format("%.0f", p.requestsPerSecond()), String.format("%.1f", p.p99Millis()), p.errors(),
+                        String.format("%.0f", v.requestsPerSecond()), String.format("%.1f", v.p99Millis()), v.errors());
+            }
+            // at low concurrency both modes must serve every request
+            assertEquals(0, platform.get(endpoint).get(0).errors(), endpoint);
+            assertEquals(0, virtual.get(endpoint).get(0).errors(), endpoint);
+        }
+    }
+}
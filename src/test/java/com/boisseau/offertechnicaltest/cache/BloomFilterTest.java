@@ -0,0 +1,61 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_true_for_every_key_put() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (long key = 0; key < 10_000; key++) {
+            filter.put(33_600_000_000L + key);
+        }
+        for (long key = 0; key < 10_000; key++) {
+            assertTrue(filter.mightContain(33_600_000_000L + key));
+        }
+        assertEquals(10_000, filter.getInsertions());
+    }
+
+    @Test
+    void mightContain_false_positive_rate_close_to_configured_rate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (long key = 0; key < 10_000; key++) {
+            filter.put(33_600_000_000L + key * 7);
+        }
+
+        int falsePositives = 0;
+        for (long key = 10_000; key < 110_000; key++) {
+            if (filter.mightContain(33_700_000_000L + key)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives / 100_000.0 < 0.02);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+    }
+
+    @Test
+    void empty_filter_contains_nothing() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        assertFalse(filter.mightContain(33_612_345_678L));
+        assertEquals(0.0, filter.expectedFalsePositiveRate());
+    }
+
+    @Test
+    void sizing_follows_expected_insertions_and_rate() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // ~9.6 bits per key and 7 hashes for 1%
+        assertEquals(7, filter.getHashCount());
+        assertTrue(filter.getMemoryBytes() > 1_150_000 && filter.getMemoryBytes() < 1_250_000);
+    }
+
+    @Test
+    void invalid_sizing_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1_000, 1.0));
+    }
+}
@@ -0,0 +1,52 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissingUserIdCacheTest {
+
+    private final MissingUserIdCache cache = new MissingUserIdCache(true, 100, 60_000);
+
+    @Test
+    void added_id_is_missing_until_a_user_is_created_with_it() {
+        cache.add(7, cache.stamp());
+        assertTrue(cache.isMissing(7));
+        assertFalse(cache.isMissing(8));
+
+        cache.created(List.of(6, 7));
+
+        assertFalse(cache.isMissing(7));
+    }
+
+    @Test
+    void id_found_missing_before_a_creation_is_not_added() {
+        long stamp = cache.stamp();
+        // a user is created while the lookup runs
+        cache.created(7);
+        cache.add(7, stamp);
+
+        assertFalse(cache.isMissing(7));
+    }
+
+    @Test
+    void entries_expire() throws InterruptedException {
+        MissingUserIdCache shortLived = new MissingUserIdCache(true, 100, 20);
+        shortLived.add(7, shortLived.stamp());
+
+        Thread.sleep(50);
+
+        assertFalse(shortLived.isMissing(7));
+    }
+
+    @Test
+    void disabled_cache_never_answers() {
+        MissingUserIdCache disabled = new MissingUserIdCache(false, 100, 60_000);
+        disabled.add(7, disabled.stamp());
+
+        assertFalse(disabled.isMissing(7));
+        assertEquals(0, disabled.getStats().size());
+    }
+}
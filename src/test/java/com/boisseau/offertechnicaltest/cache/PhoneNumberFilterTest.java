@@ -0,0 +1,82 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchItemResult;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.service.UserBatchRegisterService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class PhoneNumberFilterTest {
+
+    private static final long PHONE_KEY = 33698765432L;
+
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Autowired
+    private UserBatchRegisterService userBatchRegisterService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @BeforeEach
+    void setup() throws InterruptedException {
+        userRepo.deleteAll();
+        rebuild();
+    }
+
+    @AfterEach
+    void cleanup() {
+        userRepo.deleteAll();
+    }
+
+    private void rebuild() throws InterruptedException {
+        while (!phoneNumberFilter.rebuildAsync()) {
+            Thread.sleep(10);
+        }
+        while (phoneNumberFilter.getStats().rebuilding()) {
+            Thread.sleep(10);
+        }
+    }
+
+    // the rebuild reads the table without the uncommitted row, the key is put in its filter once the batch commits
+    @Test
+    void numbers_of_a_batch_committed_during_a_rebuild_are_in_the_rebuilt_filter() {
+        assertFalse(phoneNumberFilter.mightContain(PHONE_KEY));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<UserCreationRequest> requests = List.of(new UserCreationRequest(
+                    "Jean Valjean", LocalDate.of(1990, 1, 1), "France", "06 98 76 54 32", Gender.MALE));
+            userBatchRegisterService.insertVerified(requests, new UserBatchItemResult[1]);
+            try {
+                rebuild();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertTrue(phoneNumberFilter.mightContain(PHONE_KEY));
+    }
+}
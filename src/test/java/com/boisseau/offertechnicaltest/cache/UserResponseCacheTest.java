@@ -0,0 +1,64 @@
+package com.boisseau.offertechnicaltest.cache;
+
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCacheStats;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserResponseCacheTest {
+
+    private static UserResponse user(int id) {
+        return new UserResponse(id, "User " + id, LocalDate.of(2000, 1, 1), "France", null, Gender.OTHER);
+    }
+
+    @Test
+    void get_loads_once_then_hits() {
+        UserResponseCache cache = new UserResponseCache(100);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, id -> {
+            loads.incrementAndGet();
+            return user(id);
+        });
+        UserResponse cached = cache.get(1, id -> {
+            loads.incrementAndGet();
+            return user(id);
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals("User 1", cached.name());
+        UserCacheStats stats = cache.getStats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(0.5, stats.hitRate());
+        assertEquals(100, stats.maximumSize());
+    }
+
+    @Test
+    void get_loader_exception_is_thrown_and_not_cached() {
+        UserResponseCache cache = new UserResponseCache(100);
+
+        assertThrows(UserNotFoundException.class, () -> cache.get(1, id -> {
+            throw new UserNotFoundException("User not found with id: " + id + ".");
+        }));
+
+        assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    void put_and_invalidate() {
+        UserResponseCache cache = new UserResponseCache(100);
+
+        cache.put(user(1));
+        assertEquals("User 1", cache.getIfPresent(1).name());
+
+        cache.invalidate(1);
+        assertNull(cache.getIfPresent(1));
+    }
+}
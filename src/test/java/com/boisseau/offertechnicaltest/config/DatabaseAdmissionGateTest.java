@@ -0,0 +1,67 @@
+package com.boisseau.offertechnicaltest.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DatabaseAdmissionGateTest {
+
+    private static DataSource gated(DatabaseAdmissionGate gate) throws SQLException {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        return (DataSource) gate.postProcessAfterInitialization(target, "dataSource");
+    }
+
+    @Test
+    void getConnection_waits_for_a_permit_then_fails_fast() throws SQLException {
+        DatabaseAdmissionGate gate = new DatabaseAdmissionGate(1, 50);
+        DataSource dataSource = gated(gate);
+
+        Connection first = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, gate.getStats().rejected());
+
+        first.close();
+        Connection second = dataSource.getConnection();
+        assertNotNull(second);
+        assertEquals(2, gate.getStats().admitted());
+    }
+
+    @Test
+    void close_releases_the_permit_once() throws SQLException {
+        DatabaseAdmissionGate gate = new DatabaseAdmissionGate(2, 50);
+        DataSource dataSource = gated(gate);
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, gate.getStats().availablePermits());
+
+        connection.close();
+        connection.close();
+        assertEquals(2, gate.getStats().availablePermits());
+    }
+
+    @Test
+    void failed_getConnection_gives_the_permit_back() throws SQLException {
+        DatabaseAdmissionGate gate = new DatabaseAdmissionGate(1, 50);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLException("down"));
+        DataSource dataSource = (DataSource) gate.postProcessAfterInitialization(target, "dataSource");
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, gate.getStats().availablePermits());
+    }
+
+    @Test
+    void other_beans_are_left_as_they_are() {
+        DatabaseAdmissionGate gate = new DatabaseAdmissionGate(1, 50);
+        Object bean = new Object();
+
+        assertSame(bean, gate.postProcessAfterInitialization(bean, "bean"));
+    }
+}
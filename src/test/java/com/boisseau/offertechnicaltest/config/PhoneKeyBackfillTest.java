@@ -0,0 +1,75 @@
+package com.boisseau.offertechnicaltest.config;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class PhoneKeyBackfillTest {
+
+    @Autowired
+    private PhoneKeyBackfill phoneKeyBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    // reset repository, and forget the run done at startup
+    @BeforeEach
+    void setup() {
+        userRepo.deleteAll();
+        jdbcTemplate.update("DELETE FROM startup_tasks WHERE name = ?", PhoneKeyBackfill.TASK);
+    }
+
+    // a row saved before users.phone_key existed
+    private void insertLegacyUser(int id, String phoneNumber) {
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number) "
+                + "VALUES (?, 'Jean Valjean', DATE '2000-01-01', 'France', ?)", id, phoneNumber);
+    }
+
+    private Long phoneKey(int id) {
+        return jdbcTemplate.queryForObject("SELECT phone_key FROM users WHERE id = ?", Long.class, id);
+    }
+
+    // ids in insertion order, as the sequence hands them out: the lowest id is the oldest row
+    @Test
+    void backfillPhoneKeys_sets_keys_and_keeps_the_oldest_of_each_number() {
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key) "
+                + "VALUES (1000001, 'Javert', DATE '1980-01-01', 'France', '06 00 00 00 01', 33600000001)");
+        insertLegacyUser(1_000_002, "06 12 34 56 78");
+        insertLegacyUser(1_000_003, "+33 6 12 34 56 78");
+        insertLegacyUser(1_000_004, "+33600000001");
+        insertLegacyUser(1_000_005, "not a number");
+
+        phoneKeyBackfill.backfillPhoneKeys();
+
+        assertEquals(33612345678L, phoneKey(1_000_002));
+        assertNull(phoneKey(1_000_003));
+        assertNull(phoneKey(1_000_004));
+        assertNull(phoneKey(1_000_005));
+    }
+
+    // later boots do not read the users table again
+    @Test
+    void backfillPhoneKeys_runs_once_per_database() {
+        phoneKeyBackfill.backfillPhoneKeys();
+        insertLegacyUser(1_000_002, "06 12 34 56 78");
+
+        phoneKeyBackfill.backfillPhoneKeys();
+
+        assertNull(phoneKey(1_000_002));
+    }
+}
@@ -0,0 +1,190 @@
+package com.boisseau.offertechnicaltest.config;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.ReplicaStats;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.service.UserGetDetailsService;
+import com.boisseau.offertechnicaltest.service.UserListService;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A second in-memory H2 database stands in for the replica. H2 does not replicate: replicate() copies the users and
+// the heartbeat of the primary by hand, so between two calls the replica is exactly as stale as the test wants.
+// Lag checks only run when the test asks for them.
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+@TestPropertySource(properties = {
+        "app.datasource.replicas.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "app.datasource.replicas.max-lag-ms=1000",
+        "app.datasource.replicas.lag-check-ms=3600000"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:boisseau-replica;DB_CLOSE_DELAY=-1";
+
+    private static final String INSERT_USER = "INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private ReplicaRouting replicaRouting;
+
+    @Autowired
+    private UserRegisterService userRegisterService;
+
+    @Autowired
+    private UserGetDetailsService userGetDetailsService;
+
+    @Autowired
+    private UserListService userListService;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Autowired
+    private MissingUserIdCache missingUserIdCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        jdbcTemplate.update("DELETE FROM users");
+        userResponseCache.invalidateAll();
+        missingUserIdCache.invalidateAll();
+        replicate();
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM users");
+        replica.update("DELETE FROM users");
+    }
+
+    // a fresh heartbeat goes over with the users, the next check then finds the replica up to date
+    private void replicate() {
+        replicaRouting.checkLag();
+        replica.update("DELETE FROM users");
+        jdbcTemplate.query("SELECT id, name, birthdate, country_of_residence, phone_number, phone_key, gender FROM users",
+                row -> {
+                    replica.update(INSERT_USER, row.getInt(1), row.getString(2), row.getDate(3), row.getString(4),
+                            row.getString(5), row.getObject(6), row.getString(7));
+                });
+        replica.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1",
+                jdbcTemplate.queryForObject("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class));
+        replicaRouting.checkLag();
+    }
+
+    private static void insertUser(JdbcTemplate database, int id) {
+        database.update(INSERT_USER, id, "User " + id, LocalDate.of(2000, 1, 1), "France", null, null, "OTHER");
+    }
+
+    private double primaryReads(String reason) {
+        return meterRegistry.counter("datasource.reads.primary", "reason", reason).count();
+    }
+
+    @Test
+    void read_only_transactions_run_on_the_replica() {
+        insertUser(replica, 1_000_001);
+
+        assertEquals(1, userRepo.count());
+        assertEquals(List.of(1_000_001), userListService.getUsers(null, 10).users().stream().map(UserResponse::id).toList());
+        assertEquals("User 1000001", userGetDetailsService.getUserById(1_000_001).name());
+
+        Timer replicaConnections = meterRegistry.find("hikaricp.connections.usage").tag("pool", "replica-1").timer();
+        assertNotNull(replicaConnections);
+        assertTrue(replicaConnections.count() >= 3);
+    }
+
+    @Test
+    void registrations_are_written_to_the_primary_only() {
+        UserResponse user = userRegisterService.addUser(
+                new UserCreationRequest("Jean Valjean", LocalDate.of(2000, 1, 1), "France", null, Gender.MALE));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, user.id()));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM users WHERE id = ?", Integer.class, user.id()));
+    }
+
+    @Test
+    void user_read_right_after_addUser_comes_from_the_primary() {
+        UserResponse user = userRegisterService.addUser(
+                new UserCreationRequest("Jean Valjean", LocalDate.of(2000, 1, 1), "France", null, Gender.MALE));
+        // past the cache, as on another node or once evicted
+        userResponseCache.invalidateAll();
+        double before = primaryReads(ReplicaRouting.RECENT_WRITE);
+
+        assertEquals("Jean Valjean", userGetDetailsService.getUserById(user.id()).name());
+        userResponseCache.invalidateAll();
+        assertEquals("Jean Valjean", userGetDetailsService.getUsersByIds(List.of(user.id())).users().get(0).name());
+        assertEquals(before + 2, primaryReads(ReplicaRouting.RECENT_WRITE));
+    }
+
+    @Test
+    void user_the_replica_does_not_have_yet_is_found_on_the_primary() {
+        // written by another node: not a recent write of this one
+        insertUser(jdbcTemplate, 1_000_002);
+        double before = primaryReads(ReplicaRouting.NOT_FOUND);
+
+        assertEquals("User 1000002", userGetDetailsService.getUserById(1_000_002).name());
+        assertThrows(UserNotFoundException.class, () -> userGetDetailsService.getUserById(1_000_003));
+        assertEquals(before + 2, primaryReads(ReplicaRouting.NOT_FOUND));
+        assertFalse(missingUserIdCache.isMissing(1_000_002));
+        assertTrue(missingUserIdCache.isMissing(1_000_003));
+    }
+
+    @Test
+    void replica_too_far_behind_is_left_out_until_it_catches_up() {
+        insertUser(jdbcTemplate, 1_000_004);
+        assertEquals(0, userRepo.count());
+
+        // last replicated heartbeat a minute ago
+        replica.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis() - 60_000);
+        replicaRouting.checkLag();
+        ReplicaStats stats = replicaRouting.getStats().get(0);
+        assertEquals("replica-1", stats.pool());
+        assertFalse(stats.inRotation());
+        assertTrue(stats.lagMillis() >= 60_000);
+
+        double before = primaryReads("replicas-lagging");
+        assertEquals(1, userRepo.count());
+        assertEquals(before + 1, primaryReads("replicas-lagging"));
+
+        replicate();
+        assertTrue(replicaRouting.getStats().get(0).inRotation());
+        insertUser(replica, 1_000_005);
+        assertEquals(2, userRepo.count());
+    }
+}
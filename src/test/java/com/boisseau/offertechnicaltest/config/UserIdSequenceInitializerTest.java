@@ -0,0 +1,62 @@
+package com.boisseau.offertechnicaltest.config;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserIdSequenceInitializerTest {
+
+    @Autowired
+    private UserIdSequenceInitializer userIdSequenceInitializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    // reset repository
+    @BeforeEach
+    void setup() {
+        userRepo.deleteAll();
+    }
+
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'USERS_SEQ'", Long.class);
+    }
+
+    // a row written with an id the sequence has not handed out yet, as IDENTITY used to do
+    @Test
+    void alignSequenceWithExistingIds_moves_sequence_past_legacy_ids() {
+        long legacyId = nextSequenceValue() + 1_000;
+        jdbcTemplate.update(
+                "INSERT INTO users (id, name, birthdate, country_of_residence) VALUES (?, 'Jean Valjean', DATE '2000-01-01', 'France')",
+                legacyId);
+
+        userIdSequenceInitializer.alignSequenceWithExistingIds();
+
+        assertEquals(legacyId + 1, nextSequenceValue());
+    }
+
+    @Test
+    void alignSequenceWithExistingIds_never_moves_sequence_back() {
+        long before = nextSequenceValue();
+
+        userIdSequenceInitializer.alignSequenceWithExistingIds();
+
+        assertEquals(before, nextSequenceValue());
+    }
+}
@@ -0,0 +1,20 @@
+package com.boisseau.offertechnicaltest.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsCheckTest {
+
+    @Test
+    void check_refuses_a_runtime_without_virtual_threads() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> VirtualThreadsCheck.check(17));
+        assertTrue(e.getMessage().contains("Java 21+"));
+    }
+
+    @Test
+    void check_accepts_java_21_and_later() {
+        assertDoesNotThrow(() -> VirtualThreadsCheck.check(21));
+        assertDoesNotThrow(() -> VirtualThreadsCheck.check(25));
+    }
+}
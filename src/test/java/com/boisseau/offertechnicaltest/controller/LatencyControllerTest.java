@@ -0,0 +1,63 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.metrics.MethodLatencies;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class LatencyControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private UserRegisterService userRegisterService;
+
+    @Autowired
+    private MethodLatencies methodLatencies;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+    }
+
+    @Test
+    void getStats_lists_the_service_methods_called() throws Exception {
+        int id = userRegisterService.addUser(new UserCreationRequest(
+                "Jean Valjean", LocalDate.of(2000, 1, 1), "France", null, Gender.MALE)).id();
+        mockMvc.perform(get("/api/user/{id}", id))
+                .andExpect(status().isOk());
+        methodLatencies.rollInterval();
+
+        mockMvc.perform(get("/api/admin/latencies"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.intervalMillis").value(10000))
+                .andExpect(jsonPath("$.methods[?(@.method == 'UserRegisterService.addUser')]").exists())
+                .andExpect(jsonPath("$.methods[?(@.method == 'UserGetDetailsService.getUserById')].sinceStart.count",
+                        contains(greaterThanOrEqualTo(1))))
+                .andExpect(jsonPath("$.methods[?(@.method == 'UserGetDetailsService.getUserById')].sinceStart.p99",
+                        contains(greaterThan(0.0))));
+    }
+}
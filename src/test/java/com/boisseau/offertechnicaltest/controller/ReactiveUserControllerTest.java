@@ -0,0 +1,136 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.dto.UserResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The "reactive" profile, served by WebFlux on a random port.
+class ReactiveUserControllerTest {
+
+    private static ConfigurableApplicationContext context;
+    private static WebTestClient client;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(OfferTechnicalTestApplication.class)
+                .profiles("reactive")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:reactivetest",
+                        "app.reactive.r2dbc.url=r2dbc:h2:mem:///reactivetest")
+                .run();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + port).build();
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    private static String user(String name, String country, String phoneNumber) {
+        return """
+            {
+              "name": "%s",
+              "birthdate": "2000-01-01",
+              "countryOfResidence": "%s",
+              "phoneNumber": %s,
+              "gender": "Male"
+            }
+            """.formatted(name, country, phoneNumber == null ? "null" : "\"" + phoneNumber + "\"");
+    }
+
+    // the schema and the startup tasks still go through JDBC
+    @Test
+    void startup_runs_flyway_and_the_jdbc_startup_tasks() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"success\"", Integer.class) > 0);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM startup_tasks WHERE name = 'phone-key-backfill'", Integer.class));
+    }
+
+    @Test
+    void addUser_then_getUserById_returns_the_user() {
+        UserResponse created = client.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user("Jean Valjean", "France", "06 11 22 33 44"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(created);
+        assertEquals("Jean Valjean", created.name());
+        int id = created.id();
+
+        client.get().uri("/api/user/{id}", id)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(id)
+                .jsonPath("$.name").isEqualTo("Jean Valjean")
+                .jsonPath("$.countryOfResidence").isEqualTo("France")
+                .jsonPath("$.phoneNumber").isEqualTo("06 11 22 33 44");
+    }
+
+    @Test
+    void addUser_same_number_in_another_format_returns_400() {
+        client.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user("Javert", "France", "06 55 44 33 22"))
+                .exchange()
+                .expectStatus().isCreated();
+
+        client.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user("Fantine", "France", "+33655443322"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.error").isEqualTo("Bad request")
+                .jsonPath("$.message").isEqualTo("This number is already used.");
+    }
+
+    @Test
+    void addUser_not_from_France_returns_400() {
+        client.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(user("Thenardier", "Belgium", null))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Bad request")
+                .jsonPath("$.message").isEqualTo("Only users from France are allowed.");
+    }
+
+    @Test
+    void addUser_malformed_json_returns_400() {
+        client.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{ \"name\": ")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("JSON parse error");
+    }
+
+    @Test
+    void getUserById_unknown_id_returns_404() {
+        client.get().uri("/api/user/{id}", 999_999)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("User not found with id: 999999.");
+    }
+}
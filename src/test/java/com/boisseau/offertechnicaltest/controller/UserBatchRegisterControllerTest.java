@@ -0,0 +1,152 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.service.UserRegisterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserBatchRegisterControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private UserRegisterService userRegisterService;
+
+    private MockMvc mockMvc;
+
+    // Reset repository
+    @BeforeEach
+    void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+        userRepo.deleteAll();
+    }
+
+    @Test
+    void addUsers_valid_batch_returns_200_and_saves_all() throws Exception {
+        String jsonRequest = """
+            [
+              {
+                "name": "Jean Valjean",
+                "birthdate": "2000-01-01",
+                "countryOfResidence": "France",
+                "phoneNumber": "06 12 34 56 78",
+                "gender": "Male"
+              },
+              {
+                "name": "Cosette",
+                "birthdate": "2001-01-01",
+                "countryOfResidence": "France",
+                "phoneNumber": null,
+                "gender": "Female"
+              }
+            ]
+            """;
+
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(0))
+                .andExpect(jsonPath("$.results[0].index").value(0))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].user.id").exists())
+                .andExpect(jsonPath("$.results[0].user.name").value("Jean Valjean"))
+                .andExpect(jsonPath("$.results[1].user.name").value("Cosette"));
+
+        assertEquals(2, userRepo.count());
+    }
+
+    @Test
+    void addUsers_mixed_batch_rejects_invalid_and_duplicates() throws Exception {
+        // registered through the service so that the phone number filter knows it
+        userRegisterService.addUser(new UserCreationRequest(
+                "Javert", LocalDate.of(1980, 1, 1), "France", "06 00 00 00 01", Gender.MALE));
+
+        String jsonRequest = """
+            [
+              {
+                "name": "Jean Valjean",
+                "birthdate": "2000-01-01",
+                "countryOfResidence": "France",
+                "phoneNumber": "06 12 34 56 78",
+                "gender": "Male"
+              },
+              {
+                "name": "Thenardier",
+                "birthdate": "2000-01-01",
+                "countryOfResidence": "Belgium",
+                "phoneNumber": "06 12 34 56 79",
+                "gender": "Male"
+              },
+              {
+                "name": "Cosette",
+                "birthdate": "2001-01-01",
+                "countryOfResidence": "France",
+                "phoneNumber": "06 12 34 56 78",
+                "gender": "Female"
+              },
+              {
+                "name": "Fantine",
+                "birthdate": "1990-01-01",
+                "countryOfResidence": "France",
+                "phoneNumber": "+33 6 00 00 00 01",
+                "gender": "Female"
+              }
+            ]
+            """;
+
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].reason").value("Only users from France are allowed."))
+                .andExpect(jsonPath("$.results[2].reason").value("This number is already used."))
+                .andExpect(jsonPath("$.results[3].reason").value("This number is already used."));
+
+        assertEquals(2, userRepo.count());
+    }
+
+    @Test
+    void addUsers_empty_batch_returns_400() throws Exception {
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.error").value("Bad request"))
+                .andExpect(jsonPath("$.message").value("The batch must contain at least one user."));
+
+        assertEquals(0, userRepo.count());
+    }
+}
@@ -4,6 +4,7 @@ import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
 import com.boisseau.offertechnicaltest.model.Gender;
 import com.boisseau.offertechnicaltest.model.User;
 import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,12 +14,14 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDate;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
@@ -78,4 +81,104 @@ class UserDetailsControllerTest {
                 .andExpect(jsonPath("$.error").value("Not found"))
                 .andExpect(jsonPath("$.message").value("User not found with id: 999999999."));
     }
+
+    // Multi-get : 200 OK with found users and missing ids
+    @Test
+    void getUsersByIds_returns_200_with_users_and_missing_ids() throws Exception {
+
+        User user = new User();
+        user.setName("Jean Valjean");
+        user.setBirthdate(LocalDate.of(2000, 1, 1));
+        user.setCountryOfResidence("France");
+        user.setGender(Gender.MALE);
+
+        User saved = userRepo.save(user);
+
+        mockMvc.perform(get("/api/users")
+                        .param("ids", saved.getId() + ",999999999")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].id").value(saved.getId()))
+                .andExpect(jsonPath("$.users[0].name").value("Jean Valjean"))
+                .andExpect(jsonPath("$.missingIds[0]").value(999999999));
+
+        mockMvc.perform(post("/api/users/by-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + saved.getId() + ", 999999999]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(saved.getId()))
+                .andExpect(jsonPath("$.missingIds[0]").value(999999999));
+    }
+
+    // Multi-get with invalid ids : 400
+    @Test
+    void getUsersByIds_invalid_ids_returns_400() throws Exception {
+        mockMvc.perform(post("/api/users/by-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At least one id is required."));
+
+        mockMvc.perform(get("/api/users")
+                        .param("ids", "1,abc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value for parameter 'ids'."));
+    }
+
+    // Listing : every user exactly once, following the cursors
+    @Test
+    void getUsers_walks_all_pages_with_cursor() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setBirthdate(LocalDate.of(2000, 1, 1));
+            user.setCountryOfResidence("France");
+            user.setGender(Gender.OTHER);
+            userRepo.save(user);
+        }
+
+        MvcResult first = mockMvc.perform(get("/api/users")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[0].name").value("User 0"))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn();
+        String cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+
+        MvcResult second = mockMvc.perform(get("/api/users")
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].name").value("User 2"))
+                .andExpect(jsonPath("$.users[1].name").value("User 3"))
+                .andReturn();
+        cursor = JsonPath.read(second.getResponse().getContentAsString(), "$.nextCursor");
+
+        mockMvc.perform(get("/api/users")
+                        .param("size", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].name").value("User 4"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    // Listing with a cursor that was not issued by the API : 400
+    @Test
+    void getUsers_invalid_cursor_returns_400() throws Exception {
+        mockMvc.perform(get("/api/users")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor."));
+
+        mockMvc.perform(get("/api/users")
+                        .param("size", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Page size must be between 1 and 1000."));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserExportControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private MockMvc mockMvc;
+
+    // reset repository
+    @BeforeEach
+    void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+        userRepo.deleteAll();
+    }
+
+    private void saveUser(String name, String phoneNumber) {
+        User user = new User();
+        user.setName(name);
+        user.setBirthdate(LocalDate.of(2000, 1, 1));
+        user.setCountryOfResidence("France");
+        user.setPhoneNumber(phoneNumber);
+        user.setGender(Gender.MALE);
+        userRepo.save(user);
+    }
+
+    // one JSON object per line, in id order
+    @Test
+    void exportUsers_returns_one_line_per_user() throws Exception {
+        saveUser("Jean Valjean", "06 12 34 56 78");
+        saveUser("Javert", null);
+
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":"));
+        assertTrue(lines[0].contains("\"name\":\"Jean Valjean\""));
+        assertTrue(lines[0].contains("\"birthdate\":\"2000-01-01\""));
+        assertTrue(lines[1].contains("\"name\":\"Javert\""));
+    }
+
+    // no users : empty body
+    @Test
+    void exportUsers_empty_table_returns_empty_body() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        assertEquals("", result.getResponse().getContentAsString());
+    }
+}
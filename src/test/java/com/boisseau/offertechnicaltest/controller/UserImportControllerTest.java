@@ -0,0 +1,204 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.ImportFormat;
+import com.boisseau.offertechnicaltest.model.ImportJob;
+import com.boisseau.offertechnicaltest.model.ImportStatus;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.repository.ImportJobRepo;
+import com.boisseau.offertechnicaltest.repository.ImportRejectionRepo;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.service.UserImportService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserImportControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private ImportJobRepo importJobRepo;
+
+    @Autowired
+    private ImportRejectionRepo importRejectionRepo;
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @TempDir
+    private Path directory;
+
+    private MockMvc mockMvc;
+
+    // reset repositories, small chunks so that every file spans several of them
+    @BeforeEach
+    void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+        userRepo.deleteAll();
+        importRejectionRepo.deleteAll();
+        importJobRepo.deleteAll();
+        Object service = AopTestUtils.getUltimateTargetObject(userImportService);
+        ReflectionTestUtils.setField(service, "directory", directory);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    private int startImport(String fileName) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/imports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\": \"" + fileName + "\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+    }
+
+    private ImportJob awaitEnd(int id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ImportJob job = importJobRepo.findById(id).orElseThrow();
+        while (job.getStatus() == ImportStatus.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            job = importJobRepo.findById(id).orElseThrow();
+        }
+        return job;
+    }
+
+    // CSV : valid lines imported, the others reported with their line number
+    @Test
+    void startImport_csv_imports_valid_lines_and_reports_rejected_ones() throws Exception {
+        Files.write(directory.resolve("users.csv"), List.of(
+                "name,birthdate,countryOfResidence,phoneNumber,gender",
+                "Jean Valjean,2000-01-01,France,06 12 34 56 78,Male",
+                "Thenardier,2000-01-01,Belgium,,Male",
+                "\"Fauchelevent, Ultime\",1950-01-01,France,,Male",
+                "",
+                "Cosette,2001-01-01,France,+33 6 12 34 56 78,Female",
+                "Fantine,01/01/1990,France,,Female"));
+
+        int id = startImport("users.csv");
+        ImportJob job = awaitEnd(id);
+
+        assertEquals(ImportStatus.COMPLETED, job.getStatus());
+        assertEquals(7, job.getLinesRead());
+        assertEquals(2, job.getCreatedCount());
+        assertEquals(3, job.getRejectedCount());
+        assertEquals(2, userRepo.count());
+        assertTrue(userRepo.findAll().stream().map(User::getName).toList().contains("Fauchelevent, Ultime"));
+
+        mockMvc.perform(get("/api/imports/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.rowsPerSecond").exists());
+
+        mockMvc.perform(get("/api/imports/{id}/rejections", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].lineNumber").value(3))
+                .andExpect(jsonPath("$[0].reason").value("Only users from France are allowed."))
+                .andExpect(jsonPath("$[1].lineNumber").value(6))
+                .andExpect(jsonPath("$[1].reason").value("This number is already used."))
+                .andExpect(jsonPath("$[2].lineNumber").value(7))
+                .andExpect(jsonPath("$[2].reason").value("Invalid record: birthdate must be yyyy-MM-dd."));
+    }
+
+    // NDJSON : one user per line
+    @Test
+    void startImport_ndjson_imports_valid_lines() throws Exception {
+        Files.write(directory.resolve("users.ndjson"), List.of(
+                "{\"name\": \"Jean Valjean\", \"birthdate\": \"2000-01-01\", \"countryOfResidence\": \"France\", \"gender\": \"Male\"}",
+                "{\"name\": \"Javert\", ",
+                "{\"name\": \"Cosette\", \"birthdate\": \"2001-01-01\", \"countryOfResidence\": \"France\"}"));
+
+        ImportJob job = awaitEnd(startImport("users.ndjson"));
+
+        assertEquals(ImportStatus.COMPLETED, job.getStatus());
+        assertEquals(2, job.getCreatedCount());
+        assertEquals(1, job.getRejectedCount());
+        assertEquals(2, userRepo.count());
+        assertEquals(2, importRejectionRepo.findAll().get(0).getLineNumber());
+    }
+
+    // an interrupted job starts again right after its checkpoint
+    @Test
+    void resumeImport_skips_lines_already_committed() throws Exception {
+        Files.write(directory.resolve("users.csv"), List.of(
+                "name,birthdate,countryOfResidence",
+                "Jean Valjean,2000-01-01,France",
+                "Cosette,2001-01-01,France",
+                "Javert,1980-01-01,France",
+                "Fantine,1990-01-01,France"));
+
+        ImportJob interrupted = new ImportJob();
+        interrupted.setFileName("users.csv");
+        interrupted.setFormat(ImportFormat.CSV);
+        interrupted.setStatus(ImportStatus.INTERRUPTED);
+        interrupted.setLinesRead(3);
+        interrupted.setCreatedCount(2);
+        int id = importJobRepo.save(interrupted).getId();
+
+        mockMvc.perform(post("/api/imports/{id}/resume", id))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+        ImportJob job = awaitEnd(id);
+
+        assertEquals(ImportStatus.COMPLETED, job.getStatus());
+        assertEquals(5, job.getLinesRead());
+        assertEquals(4, job.getCreatedCount());
+        assertEquals(List.of("Javert", "Fantine"), userRepo.findAll().stream().map(User::getName).toList());
+
+        mockMvc.perform(post("/api/imports/{id}/resume", id))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Import job " + id + " is already completed."));
+    }
+
+    // files outside the import directory : 400
+    @Test
+    void startImport_outside_import_directory_returns_400() throws Exception {
+        mockMvc.perform(post("/api/imports")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fileName\": \"../users.csv\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("File name must be the name of a file of the import directory."));
+
+        assertEquals(0, importJobRepo.count());
+    }
+
+    // unknown job : 404
+    @Test
+    void getImport_unknown_job_returns_404() throws Exception {
+        mockMvc.perform(get("/api/imports/{id}", 999999999))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Import job not found with id: 999999999."));
+    }
+}
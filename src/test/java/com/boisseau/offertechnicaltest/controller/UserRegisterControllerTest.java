@@ -18,6 +18,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import java.time.LocalDate;
 import java.util.List;
 
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -527,6 +528,64 @@ class UserRegisterControllerTest {
         assertTrue(userRepo.findAll().isEmpty());
     }
 
+    @Test
+    void addUser_phone_stored_with_canonical_key() throws Exception {
+        String jsonRequest = """
+            {
+              "name": "Jean Valjean",
+              "birthdate": "2000-01-01",
+              "countryOfResidence": "France",
+              "phoneNumber": "06 12 34 56 78",
+              "gender": "Male"
+            }
+            """;
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.phoneNumber").value("06 12 34 56 78"));
+
+        assertEquals(33612345678L, userRepo.findAll().get(0).getPhoneKey());
+    }
+
+    @Test
+    void addUser_phone_already_used_in_other_format_returns_400() throws Exception {
+        String firstRequest = """
+            {
+              "name": "Jean Valjean",
+              "birthdate": "2000-01-01",
+              "countryOfResidence": "France",
+              "phoneNumber": "06 12 34 56 78",
+              "gender": "Male"
+            }
+            """;
+        String secondRequest = """
+            {
+              "name": "Cosette",
+              "birthdate": "2000-01-01",
+              "countryOfResidence": "France",
+              "phoneNumber": "+33 6 12 34 56 78",
+              "gender": "Female"
+            }
+            """;
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(firstRequest))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(secondRequest))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.error").value("Bad request"))
+                .andExpect(jsonPath("$.message").value("This number is already used."));
+
+        assertEquals(1, userRepo.findAll().size());
+    }
+
     // Tests about birthdate
     @Test
     void addUser_birthdate_exactly_18_returns_201() throws Exception {
@@ -737,4 +796,45 @@ class UserRegisterControllerTest {
 
         assertTrue(userRepo.findAll().isEmpty());
     }
+
+    // Tests about the violations list
+    @Test
+    void addUser_several_invalid_fields_returns_400_listing_all_of_them() throws Exception {
+        String jsonRequest = """
+        {
+          "name": " ",
+          "birthdate": "2100-01-01",
+          "countryOfResidence": "Belgium",
+          "phoneNumber": "07 12",
+          "gender": "Male"
+        }
+        """;
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonRequest))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Bad request"))
+                .andExpect(jsonPath("$.violations.length()").value(4))
+                .andExpect(jsonPath("$.violations[0].field").value("name"))
+                .andExpect(jsonPath("$.violations[0].rule").value("name.required"))
+                .andExpect(jsonPath("$.violations[1].field").value("countryOfResidence"))
+                .andExpect(jsonPath("$.violations[1].message").value("Only users from France are allowed."))
+                .andExpect(jsonPath("$.violations[2].field").value("phoneNumber"))
+                .andExpect(jsonPath("$.violations[2].rule").value("phone.invalid"))
+                .andExpect(jsonPath("$.violations[3].field").value("birthdate"))
+                .andExpect(jsonPath("$.violations[3].rule").value("birthdate.future"))
+                .andExpect(jsonPath("$.message").value(startsWith("Name is required. Only users from France are allowed.")));
+
+        assertTrue(userRepo.findAll().isEmpty());
+    }
+
+    @Test
+    void addUser_parse_error_has_no_violations() throws Exception {
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.violations").doesNotExist());
+    }
 }
@@ -0,0 +1,148 @@
+package com.boisseau.offertechnicaltest.controller;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+@TestPropertySource(properties = {
+        "app.users.write-behind.enabled=true",
+        "app.users.write-behind.journal=target/write-behind-test/registrations.ndjson"
+})
+class UserWriteBehindControllerTest {
+
+    @Autowired
+    private WebApplicationContext wac;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    private MockMvc mockMvc;
+
+    // Reset repository
+    @BeforeEach
+    void setup() {
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.wac).build();
+        userRepo.deleteAll();
+    }
+
+    private static String user(String name, String country, String phoneNumber) {
+        return """
+            {
+              "name": "%s",
+              "birthdate": "2000-01-01",
+              "countryOfResidence": "%s",
+              "phoneNumber": %s,
+              "gender": "Male"
+            }
+            """.formatted(name, country, phoneNumber == null ? "null" : "\"" + phoneNumber + "\"");
+    }
+
+    private String register(String json) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.trackingId").exists())
+                .andReturn();
+        String trackingId = JsonPath.read(result.getResponse().getContentAsString(), "$.trackingId");
+        assertEquals("/api/registrations/" + trackingId, result.getResponse().getHeader("Location"));
+        return trackingId;
+    }
+
+    private String awaitOutcome(String trackingId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        String status;
+        do {
+            Thread.sleep(20);
+            MvcResult result = mockMvc.perform(get("/api/registrations/{trackingId}", trackingId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            status = JsonPath.read(result.getResponse().getContentAsString(), "$.status");
+        } while ("PENDING".equals(status) && System.currentTimeMillis() < deadline);
+        return status;
+    }
+
+    @Test
+    void addUser_returns_202_then_the_user_is_written() throws Exception {
+        String trackingId = register(user("Jean Valjean", "France", "06 12 34 56 78"));
+
+        assertEquals("CREATED", awaitOutcome(trackingId));
+        mockMvc.perform(get("/api/registrations/{trackingId}", trackingId))
+                .andExpect(jsonPath("$.userId").exists())
+                .andExpect(jsonPath("$.reason").doesNotExist());
+        assertEquals(1, userRepo.count());
+        assertTrue(userRepo.existsByPhoneKey(33612345678L));
+    }
+
+    @Test
+    void addUser_same_number_as_a_pending_or_written_user_returns_400() throws Exception {
+        String trackingId = register(user("Javert", "France", "06 00 00 00 01"));
+
+        // refused whether the first one is still queued or already written
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user("Fantine", "France", "+33 6 00 00 00 01")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("This number is already used."));
+
+        assertEquals("CREATED", awaitOutcome(trackingId));
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user("Fantine", "France", "+33 6 00 00 00 01")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("This number is already used."));
+        assertEquals(1, userRepo.count());
+    }
+
+    // a value the table refuses is not a duplicate number
+    @Test
+    void addUser_refused_by_another_constraint_is_rejected_with_its_sql_state() throws Exception {
+        String trackingId = register(user("Jean " + "Valjean".repeat(50), "France", "06 12 34 56 78"));
+
+        assertEquals("REJECTED", awaitOutcome(trackingId));
+        mockMvc.perform(get("/api/registrations/{trackingId}", trackingId))
+                .andExpect(jsonPath("$.reason").value("The database refused the registration (SQL state 22001)."));
+        assertEquals(0, userRepo.count());
+
+        // the number was not kept reserved
+        assertEquals("CREATED", awaitOutcome(register(user("Jean Valjean", "France", "06 12 34 56 78"))));
+    }
+
+    @Test
+    void addUser_invalid_user_returns_400_and_is_not_queued() throws Exception {
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(user("Thenardier", "Belgium", null)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Bad request"))
+                .andExpect(jsonPath("$.message").value("Only users from France are allowed."));
+    }
+
+    @Test
+    void getRegistration_unknown_tracking_id_returns_404() throws Exception {
+        mockMvc.perform(get("/api/registrations/{trackingId}", "unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Registration not found with tracking id: unknown."));
+    }
+}
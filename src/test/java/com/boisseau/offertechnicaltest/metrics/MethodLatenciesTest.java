@@ -0,0 +1,109 @@
+package com.boisseau.offertechnicaltest.metrics;
+
+import com.boisseau.offertechnicaltest.model.dto.LatencyReport;
+import com.boisseau.offertechnicaltest.model.dto.MethodLatencyStats;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodLatenciesTest {
+
+    @TempDir
+    private Path directory;
+
+    private MethodLatencies methodLatencies(String logFile) throws Exception {
+        MethodLatencies methodLatencies = new MethodLatencies();
+        // rolled by the tests only
+        ReflectionTestUtils.setField(methodLatencies, "intervalMillis", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(methodLatencies, "logFile", logFile);
+        methodLatencies.start();
+        return methodLatencies;
+    }
+
+    private static MethodLatencyStats stats(LatencyReport report, String method) {
+        return report.methods().stream()
+                .filter(stats -> stats.method().equals(method))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    void rollInterval_publishes_percentiles_per_method() throws Exception {
+        MethodLatencies methodLatencies = methodLatencies("");
+        Method trim = String.class.getMethod("trim");
+        Method strip = String.class.getMethod("strip");
+
+        for (int i = 1; i <= 1000; i++) {
+            methodLatencies.record(trim, i * 1_000L);
+        }
+        methodLatencies.record(strip, 5_000_000);
+        methodLatencies.rollInterval();
+
+        LatencyReport report = methodLatencies.getStats();
+        assertEquals(2, report.methods().size());
+        assertNotNull(report.lastIntervalEnd());
+
+        MethodLatencyStats trimStats = stats(report, "String.trim");
+        assertEquals(1000, trimStats.lastInterval().count());
+        // within the 1% precision of two significant digits
+        assertEquals(500, trimStats.lastInterval().p50(), 5);
+        assertEquals(990, trimStats.lastInterval().p99(), 10);
+        assertEquals(1000, trimStats.lastInterval().max(), 10);
+        assertEquals(5000, stats(report, "String.strip").sinceStart().max(), 50);
+
+        // a new interval starts empty, the since-start histogram keeps everything
+        methodLatencies.record(trim, 2_000);
+        methodLatencies.rollInterval();
+        trimStats = stats(methodLatencies.getStats(), "String.trim");
+        assertEquals(1, trimStats.lastInterval().count());
+        assertEquals(1001, trimStats.sinceStart().count());
+
+        methodLatencies.stop();
+    }
+
+    @Test
+    void record_caps_values_above_the_highest_trackable() throws Exception {
+        MethodLatencies methodLatencies = methodLatencies("");
+        Method trim = String.class.getMethod("trim");
+
+        methodLatencies.record(trim, TimeUnit.HOURS.toNanos(2));
+        methodLatencies.rollInterval();
+
+        MethodLatencyStats stats = stats(methodLatencies.getStats(), "String.trim");
+        assertEquals(1, stats.lastInterval().count());
+        assertEquals(60_000_000, stats.lastInterval().max(), 600_000);
+        methodLatencies.stop();
+    }
+
+    @Test
+    void log_file_holds_one_tagged_histogram_per_method_and_interval() throws Exception {
+        Path logFile = directory.resolve("latencies.hlog");
+        MethodLatencies methodLatencies = methodLatencies(logFile.toString());
+        Method trim = String.class.getMethod("trim");
+
+        methodLatencies.record(trim, 10_000);
+        methodLatencies.rollInterval();
+        methodLatencies.record(trim, 20_000);
+        methodLatencies.record(trim, 30_000);
+        // stop() rolls the last interval
+        methodLatencies.stop();
+
+        HistogramLogReader reader = new HistogramLogReader(logFile.toFile());
+        Histogram first = (Histogram) reader.nextIntervalHistogram();
+        Histogram second = (Histogram) reader.nextIntervalHistogram();
+        assertNull(reader.nextIntervalHistogram());
+        reader.close();
+
+        assertEquals("String.trim", first.getTag());
+        assertEquals(1, first.getTotalCount());
+        assertEquals(2, second.getTotalCount());
+    }
+}
@@ -0,0 +1,50 @@
+package com.boisseau.offertechnicaltest.metrics;
+
+import com.boisseau.offertechnicaltest.validation.UserRules;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserMetrics userMetrics = new UserMetrics(meterRegistry);
+
+    private double count(String name, String tag, String value) {
+        return meterRegistry.get(name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    void recordRejection_counts_by_rule() {
+        userMetrics.recordRejection("country.not-allowed");
+        userMetrics.recordRejection("country.not-allowed");
+        userMetrics.recordRejection("birthdate.underage");
+
+        assertEquals(2, count("users.rejections", "rule", "country.not-allowed"));
+        assertEquals(1, count("users.rejections", "rule", "birthdate.underage"));
+        assertEquals(2, meterRegistry.get("users.rejections").counters().size());
+    }
+
+    @Test
+    void duplicate_phone_numbers_are_counted_as_conflicts_by_source() {
+        userMetrics.recordRejection(UserRules.PHONE_DUPLICATE.rule());
+        userMetrics.recordConstraintViolation(
+                "could not execute statement [Unique index or primary key violation: \"PUBLIC.IDX_USERS_PHONE_KEY ON PUBLIC.USERS(PHONE_KEY)\"]");
+        userMetrics.recordConstraintViolation("NULL not allowed for column \"NAME\"");
+
+        assertEquals(1, count("users.rejections", "rule", "phone.duplicate"));
+        assertEquals(1, count("users.phone.conflicts", "source", "check"));
+        assertEquals(1, count("users.phone.conflicts", "source", "constraint"));
+    }
+
+    @Test
+    void registrations_are_counted_by_channel() {
+        userMetrics.recordRegistration();
+        userMetrics.recordRegistrations(50);
+
+        assertEquals(1, count("users.registrations", "channel", "single"));
+        assertEquals(50, count("users.registrations", "channel", "batch"));
+    }
+}
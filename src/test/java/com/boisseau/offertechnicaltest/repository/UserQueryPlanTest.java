@@ -0,0 +1,89 @@
+package com.boisseau.offertechnicaltest.repository;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The statements below are the ones UserRepo sends (same conditions and order), run through H2's EXPLAIN on a table
+// big enough for the optimizer to care: each lookup must go through its index, not a scan of the primary key.
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserQueryPlanTest {
+
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    // 20,000 users over 1,000 names and 55 years of birthdates, then fresh optimizer statistics
+    @BeforeEach
+    void setup() {
+        userRepo.deleteAll();
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+                + "SELECT X, 'User ' || MOD(X, 1000), DATEADD('DAY', -MOD(X * 7, 20000), DATE '2005-01-01'), 'France', "
+                + "'06' || LPAD(CAST(X AS VARCHAR), 8, '0'), 33600000000 + X, 'OTHER' FROM SYSTEM_RANGE(1, ?)", ROWS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbcTemplate.update("DELETE FROM users");
+    }
+
+    private String plan(String sql, Object... parameters) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters).toUpperCase();
+    }
+
+    @Test
+    void migrations_ran_once_each() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "SELECT \"version\" FROM \"flyway_schema_history\" WHERE \"success\" AND \"version\" IS NOT NULL ORDER BY \"installed_rank\"",
+                String.class);
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), versions);
+    }
+
+    @Test
+    void page_by_name_uses_the_name_index() {
+        String plan = plan("SELECT * FROM users WHERE name = ? AND birthdate BETWEEN ? AND ? AND id > ? ORDER BY id "
+                        + "FETCH FIRST ? ROWS ONLY",
+                "User 42", "0001-01-01", "9999-12-31", 0, 101);
+
+        assertTrue(plan.contains("IDX_USERS_NAME"), plan);
+    }
+
+    // read in order from the index, no sort of the whole range
+    @Test
+    void page_by_birthdate_uses_the_birthdate_index() {
+        String plan = plan("SELECT * FROM users WHERE birthdate BETWEEN ? AND ? AND (birthdate > ? OR id > ?) "
+                        + "ORDER BY birthdate, id FETCH FIRST ? ROWS ONLY",
+                "1990-03-01", "1990-12-31", "1990-03-01", 4242, 101);
+
+        assertTrue(plan.contains("IDX_USERS_BIRTHDATE"), plan);
+        assertTrue(plan.contains("INDEX SORTED"), plan);
+    }
+
+    @Test
+    void phone_lookups_use_the_phone_key_index() {
+        String exists = plan("SELECT id FROM users WHERE phone_key = ? FETCH FIRST 1 ROWS ONLY", 33600000042L);
+        String existing = plan("SELECT phone_key FROM users WHERE phone_key IN (?, ?, ?)", 33600000001L, 33600000002L, 1L);
+
+        assertTrue(exists.contains("IDX_USERS_PHONE_KEY"), exists);
+        assertTrue(existing.contains("IDX_USERS_PHONE_KEY"), existing);
+    }
+}
@@ -0,0 +1,114 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.RegistrationStatus;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationJournalTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @TempDir
+    private Path directory;
+
+    private static UserCreationRequest request(String name) {
+        return new UserCreationRequest(name, LocalDate.of(2000, 1, 1), "France", "06 12 34 56 78", Gender.FEMALE);
+    }
+
+    @Test
+    void open_replays_registrations_without_outcome_in_order() throws Exception {
+        Path file = directory.resolve("journal/registrations.ndjson");
+        RegistrationJournal.Entry first = RegistrationJournal.Entry.pending("a", request("Fantine"));
+        RegistrationJournal.Entry second = RegistrationJournal.Entry.pending("b", request("Cosette"));
+        RegistrationJournal.Entry third = RegistrationJournal.Entry.pending("c", request("Eponine"));
+
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 10, true)) {
+            assertTrue(journal.getPending().isEmpty());
+            journal.append(first);
+            journal.append(second);
+            journal.append(third);
+            journal.appendAll(List.of(second.created(42)));
+        }
+
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 10, true)) {
+            assertEquals(List.of(first, third), journal.getPending());
+            assertEquals(List.of(second.created(42)), journal.getOutcomes());
+            assertEquals(LocalDate.of(2000, 1, 1), journal.getPending().get(0).request().birthdate());
+            assertEquals(Gender.FEMALE, journal.getPending().get(0).request().gender());
+        }
+    }
+
+    @Test
+    void open_compacts_the_journal_and_keeps_the_latest_outcomes() throws Exception {
+        Path file = directory.resolve("registrations.ndjson");
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 2, false)) {
+            for (int i = 0; i < 5; i++) {
+                RegistrationJournal.Entry entry = RegistrationJournal.Entry.pending("id" + i, request("User " + i));
+                journal.append(entry);
+                journal.append(entry.rejected("Reason " + i));
+            }
+        }
+
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 2, false)) {
+            assertTrue(journal.getPending().isEmpty());
+            assertEquals(List.of("id3", "id4"),
+                    journal.getOutcomes().stream().map(RegistrationJournal.Entry::trackingId).toList());
+            assertEquals(RegistrationStatus.REJECTED, journal.getOutcomes().get(1).status());
+            assertEquals("Reason 4", journal.getOutcomes().get(1).reason());
+        }
+        assertEquals(2, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void compactIfLargerThan_rewrites_the_open_journal_and_keeps_appending() throws Exception {
+        Path file = directory.resolve("registrations.ndjson");
+        RegistrationJournal.Entry waiting = RegistrationJournal.Entry.pending("waiting", request("Cosette"));
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 2, true)) {
+            journal.append(waiting);
+            for (int i = 0; i < 5; i++) {
+                RegistrationJournal.Entry entry = RegistrationJournal.Entry.pending("id" + i, request("User " + i));
+                journal.append(entry);
+                journal.sync(journal.append(entry.created(i)));
+            }
+            journal.compactIfLargerThan(Long.MAX_VALUE);
+            assertEquals(11, Files.readAllLines(file).size());
+
+            journal.compactIfLargerThan(0);
+            assertEquals(3, Files.readAllLines(file).size());
+            journal.sync(journal.append(RegistrationJournal.Entry.pending("next", request("Eponine"))));
+        }
+
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 2, true)) {
+            assertEquals(List.of("waiting", "next"),
+                    journal.getPending().stream().map(RegistrationJournal.Entry::trackingId).toList());
+            assertEquals(List.of("id3", "id4"),
+                    journal.getOutcomes().stream().map(RegistrationJournal.Entry::trackingId).toList());
+        }
+    }
+
+    @Test
+    void open_skips_a_line_cut_short_by_a_crash() throws Exception {
+        Path file = directory.resolve("registrations.ndjson");
+        RegistrationJournal.Entry entry = RegistrationJournal.Entry.pending("a", request("Fantine"));
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 10, true)) {
+            journal.append(entry);
+        }
+        Files.writeString(file, "{\"trackingId\":\"b\",\"sta", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (RegistrationJournal journal = RegistrationJournal.open(file, jsonMapper, 10, true)) {
+            assertEquals(List.of(entry), journal.getPending());
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
+import com.boisseau.offertechnicaltest.metrics.UserMetrics;
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchItemResult;
+import com.boisseau.offertechnicaltest.model.dto.UserBatchResponse;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import com.boisseau.offertechnicaltest.validation.Violation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBatchRegisterServiceTest {
+
+    @Mock
+    private UserRepo userRepo;
+
+    @Mock
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Mock
+    private UserMetrics userMetrics;
+
+    @Mock
+    private MissingUserIdCache missingUserIdCache;
+
+    @Spy
+    private CountryRegistry countryRegistry = new CountryRegistry();
+
+    @Mock
+    private ReplicaRouting replicaRouting;
+
+    @InjectMocks
+    private UserBatchRegisterService userBatchRegisterService;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(userBatchRegisterService, "maxBatchSize", 5000);
+        countryRegistry.reload(new ClassPathResource("countries.csv"));
+    }
+
+    private static UserCreationRequest request(String name, String phoneNumber) {
+        return new UserCreationRequest(name, LocalDate.now().minusYears(25), "France", phoneNumber, Gender.MALE);
+    }
+
+    // saveAll returns what it was given with ids assigned
+    private void mockSaveAll() {
+        when(userRepo.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            List<User> saved = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                user.setId(i + 1);
+                saved.add(user);
+            }
+            return saved;
+        });
+    }
+
+    @Test
+    void addUsers_all_valid_saves_all_in_one_call() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(true);
+        when(userRepo.findExistingPhoneKeys(anyCollection())).thenReturn(Collections.emptyList());
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request("Cosette", "06 12 34 56 79"),
+                request("Javert", null)
+        ));
+
+        assertEquals(3, response.created());
+        assertEquals(0, response.rejected());
+        assertEquals("Cosette", response.results().get(1).user().name());
+        verify(userRepo, times(1)).findExistingPhoneKeys(anyCollection());
+        verify(userRepo, times(1)).saveAll(anyList());
+        verify(userRepo, never()).save(any());
+        verify(userRepo, never()).existsByPhoneKey(anyLong());
+        verify(phoneNumberFilter, times(1)).addAll(List.of(33612345678L, 33612345679L));
+    }
+
+    @Test
+    void addUsers_phone_unknown_to_filter_skips_database_check() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(false);
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request("Cosette", "06 12 34 56 79")
+        ));
+
+        assertEquals(2, response.created());
+        verify(userRepo, never()).findExistingPhoneKeys(anyCollection());
+    }
+
+    @Test
+    void addUsers_phone_unknown_to_filter_is_still_checked_inside_batch() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(false);
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request("Cosette", "06 12 34 56 78")
+        ));
+
+        assertEquals(1, response.created());
+        assertEquals("This number is already used.", response.results().get(1).reason());
+    }
+
+    @Test
+    void addUsers_invalid_item_is_rejected_and_others_are_saved() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(true);
+        when(userRepo.findExistingPhoneKeys(anyCollection())).thenReturn(Collections.emptyList());
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request(" ", "06 12 34 56 79")
+        ));
+
+        assertEquals(1, response.created());
+        assertEquals(1, response.rejected());
+        assertEquals(UserBatchItemResult.Status.CREATED, response.results().get(0).status());
+        assertEquals(UserBatchItemResult.Status.REJECTED, response.results().get(1).status());
+        assertEquals("Name is required.", response.results().get(1).reason());
+        assertNull(response.results().get(1).user());
+    }
+
+    @Test
+    void addUsers_item_with_several_invalid_fields_lists_all_of_them() {
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                new UserCreationRequest(null, LocalDate.now().minusYears(10), "Narnia", "12", Gender.FEMALE)
+        ));
+
+        UserBatchItemResult result = response.results().get(0);
+        assertEquals(UserBatchItemResult.Status.REJECTED, result.status());
+        assertEquals(List.of("name.required", "country.not-allowed", "phone.invalid", "birthdate.underage"),
+                result.violations().stream().map(Violation::rule).toList());
+        assertEquals("Name is required. Only users from France are allowed. "
+                + "Your phone number is missing or invalid. It must be in the format 0X XX XX XX XX or +33 X XX XX XX XX. "
+                + "User must be at least 18 years old.", result.reason());
+        verify(userMetrics, times(4)).recordRejection(anyString());
+        verify(userRepo, never()).findExistingPhoneKeys(anyCollection());
+    }
+
+    @Test
+    void addUsers_phone_already_in_database_is_rejected() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(true);
+        when(userRepo.findExistingPhoneKeys(anyCollection())).thenReturn(List.of(33612345678L));
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request("Cosette", "06 12 34 56 79")
+        ));
+
+        assertEquals(1, response.created());
+        assertEquals("This number is already used.", response.results().get(0).reason());
+        assertEquals(UserBatchItemResult.Status.CREATED, response.results().get(1).status());
+    }
+
+    @Test
+    void addUsers_same_number_in_other_format_inside_batch_is_rejected() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(false);
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request("Cosette", "+33612345678")
+        ));
+
+        assertEquals(1, response.created());
+        assertEquals("This number is already used.", response.results().get(1).reason());
+    }
+
+    @Test
+    void addUsers_phone_duplicated_inside_batch_keeps_first_occurrence() {
+        mockSaveAll();
+        when(phoneNumberFilter.mightContain(anyLong())).thenReturn(true);
+        when(userRepo.findExistingPhoneKeys(anyCollection())).thenReturn(Collections.emptyList());
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(List.of(
+                request("Jean Valjean", "06 12 34 56 78"),
+                request("Cosette", "06 12 34 56 78")
+        ));
+
+        assertEquals(1, response.created());
+        assertEquals(UserBatchItemResult.Status.CREATED, response.results().get(0).status());
+        assertEquals("This number is already used.", response.results().get(1).reason());
+    }
+
+    @Test
+    void addUsers_null_item_is_rejected() {
+        mockSaveAll();
+
+        UserBatchResponse response = userBatchRegisterService.addUsers(Arrays.asList(
+                null,
+                request("Jean Valjean", null)
+        ));
+
+        assertEquals(1, response.created());
+        assertEquals("User is required.", response.results().get(0).reason());
+        verify(userRepo, never()).findExistingPhoneKeys(anyCollection());
+    }
+
+    @Test
+    void addUsers_empty_batch_throws() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> userBatchRegisterService.addUsers(List.of()));
+        assertEquals("The batch must contain at least one user.", ex.getMessage());
+
+        verify(userRepo, never()).saveAll(any());
+    }
+
+    @Test
+    void addUsers_too_large_batch_throws() {
+        ReflectionTestUtils.setField(userBatchRegisterService, "maxBatchSize", 1);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> userBatchRegisterService.addUsers(List.of(
+                        request("Jean Valjean", null),
+                        request("Cosette", null))));
+        assertEquals("A batch cannot contain more than 1 users.", ex.getMessage());
+
+        verify(userRepo, never()).saveAll(any());
+    }
+}
@@ -1,21 +1,31 @@
 package com.boisseau.offertechnicaltest.service;
 
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
 import com.boisseau.offertechnicaltest.exception.UserNotFoundException;
 import com.boisseau.offertechnicaltest.model.Gender;
 import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserMultiGetResponse;
 import com.boisseau.offertechnicaltest.model.dto.UserResponse;
 import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class UserDetailsServiceTest {
@@ -23,9 +33,52 @@ class UserDetailsServiceTest {
     @Mock
     private UserRepo userRepo;
 
+    @Spy
+    private UserResponseCache userResponseCache = new UserResponseCache(100);
+
+    @Spy
+    private MissingUserIdCache missingUserIdCache = new MissingUserIdCache(true, 100, 60_000);
+
+    @Mock
+    private ReplicaRouting replicaRouting;
+
     @InjectMocks
     private UserGetDetailsService userDetailsService;
 
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(userDetailsService, "maxIds", 10);
+        ReflectionTestUtils.setField(userDetailsService, "chunkSize", 2);
+    }
+
+    private static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setBirthdate(LocalDate.of(2000, 1, 1));
+        user.setCountryOfResidence("France");
+        user.setGender(Gender.OTHER);
+        return user;
+    }
+
+    // the repository knows ids below 100
+    private void stubFindAllById() {
+        when(userRepo.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<User> users = new ArrayList<>();
+            for (Integer id : invocation.<Iterable<Integer>>getArgument(0)) {
+                if (id < 100) {
+                    users.add(user(id));
+                }
+            }
+            return users;
+        });
+    }
+
+    // what ReplicaRouting does once it has picked the primary
+    private void stubOnPrimary() {
+        when(replicaRouting.onPrimary(anyString(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
     // User found
     @Test
     void getUserById_existing_user_returns_user_response() {
@@ -59,4 +112,153 @@ class UserDetailsServiceTest {
 
         assertEquals("User not found with id: 999999999.", ex.getMessage());
     }
+
+    // Cache
+    @Test
+    void getUserById_second_call_is_served_from_cache() {
+        User user = new User();
+        user.setId(1);
+        user.setName("Jean Valjean");
+        user.setBirthdate(LocalDate.of(2000, 1, 1));
+        user.setCountryOfResidence("FRANCE");
+        user.setGender(Gender.MALE);
+
+        when(userRepo.findById(1)).thenReturn(Optional.of(user));
+
+        UserResponse first = userDetailsService.getUserById(1);
+        UserResponse second = userDetailsService.getUserById(1);
+
+        assertEquals(first, second);
+        verify(userRepo, times(1)).findById(1);
+        assertEquals(1, userResponseCache.getStats().hitCount());
+        assertEquals(1, userResponseCache.getStats().missCount());
+    }
+
+    @Test
+    void getUserById_registered_user_is_served_from_cache() {
+        userResponseCache.put(new UserResponse(2, "Cosette", LocalDate.of(2000, 1, 1), "FRANCE", null, Gender.FEMALE));
+
+        UserResponse response = userDetailsService.getUserById(2);
+
+        assertEquals("Cosette", response.name());
+        verify(userRepo, never()).findById(anyInt());
+    }
+
+    @Test
+    void getUserById_non_existing_user_is_remembered_as_missing() {
+        when(userRepo.findById(999999999)).thenReturn(Optional.empty());
+
+        assertThrows(UserNotFoundException.class, () -> userDetailsService.getUserById(999999999));
+        UserNotFoundException ex = assertThrows(UserNotFoundException.class, () -> userDetailsService.getUserById(999999999));
+
+        assertEquals("User not found with id: 999999999.", ex.getMessage());
+        assertEquals(0, ex.getStackTrace().length);
+        verify(userRepo, times(1)).findById(999999999);
+    }
+
+    @Test
+    void getUserById_missing_id_is_queried_again_once_a_user_is_created_with_it() {
+        when(userRepo.findById(5)).thenReturn(Optional.empty(), Optional.of(user(5)));
+
+        assertThrows(UserNotFoundException.class, () -> userDetailsService.getUserById(5));
+        missingUserIdCache.created(5);
+
+        assertEquals("User 5", userDetailsService.getUserById(5).name());
+        verify(userRepo, times(2)).findById(5);
+    }
+
+    // Multi-get
+    @Test
+    void getUsersByIds_returns_found_users_and_missing_ids_in_request_order() {
+        stubFindAllById();
+
+        UserMultiGetResponse response = userDetailsService.getUsersByIds(List.of(3, 150, 1, 3, 2, 200));
+
+        assertEquals(List.of(3, 1, 2), response.users().stream().map(UserResponse::id).toList());
+        assertEquals(List.of(150, 200), response.missingIds());
+        // 5 distinct ids, chunks of 2
+        verify(userRepo, times(3)).findAllById(anyIterable());
+        verify(userRepo, never()).findById(anyInt());
+    }
+
+    @Test
+    void getUsersByIds_cached_users_are_not_queried() {
+        stubFindAllById();
+        userResponseCache.put(UserResponse.from(user(1)));
+        userResponseCache.put(UserResponse.from(user(2)));
+
+        UserMultiGetResponse response = userDetailsService.getUsersByIds(List.of(1, 2, 3));
+
+        assertEquals(3, response.users().size());
+        verify(userRepo, times(1)).findAllById(List.of(3));
+    }
+
+    @Test
+    void getUsersByIds_missing_ids_are_remembered_as_missing() {
+        stubFindAllById();
+
+        userDetailsService.getUsersByIds(List.of(150));
+        UserMultiGetResponse response = userDetailsService.getUsersByIds(List.of(1, 150));
+
+        assertEquals(List.of(150), response.missingIds());
+        verify(userRepo, times(1)).findAllById(List.of(150));
+        verify(userRepo, times(1)).findAllById(List.of(1));
+    }
+
+    @Test
+    void getUsersByIds_empty_list_throws_IllegalArgumentException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userDetailsService.getUsersByIds(List.of()));
+        assertEquals("At least one id is required.", e.getMessage());
+    }
+
+    @Test
+    void getUsersByIds_too_many_ids_throws_IllegalArgumentException() {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 11; id++) {
+            ids.add(id);
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userDetailsService.getUsersByIds(ids));
+        assertEquals("Cannot fetch more than 10 users at once.", e.getMessage());
+        verifyNoInteractions(userRepo);
+    }
+
+    // Replicas
+    @Test
+    void getUserById_recently_written_user_is_read_on_the_primary() {
+        stubOnPrimary();
+        when(replicaRouting.isRecentlyWritten(1)).thenReturn(true);
+        when(userRepo.findById(1)).thenReturn(Optional.of(user(1)));
+
+        assertEquals(1, userDetailsService.getUserById(1).id());
+        verify(replicaRouting).onPrimary(eq(ReplicaRouting.RECENT_WRITE), any());
+        verify(userRepo, times(1)).findById(1);
+    }
+
+    @Test
+    void getUserById_user_missing_on_a_replica_is_looked_up_on_the_primary() {
+        stubOnPrimary();
+        when(replicaRouting.hasReplicas()).thenReturn(true);
+        when(userRepo.findById(1)).thenReturn(Optional.empty(), Optional.of(user(1)));
+
+        assertEquals(1, userDetailsService.getUserById(1).id());
+        verify(replicaRouting).onPrimary(eq(ReplicaRouting.NOT_FOUND), any());
+        assertFalse(missingUserIdCache.isMissing(1));
+    }
+
+    @Test
+    void getUsersByIds_ids_missing_on_a_replica_are_looked_up_on_the_primary() {
+        stubOnPrimary();
+        when(replicaRouting.hasReplicas()).thenReturn(true);
+        when(userRepo.findAllById(List.of(1, 2))).thenReturn(List.of(user(1)));
+        when(userRepo.findAllById(List.of(2))).thenReturn(List.of(user(2)));
+
+        UserMultiGetResponse response = userDetailsService.getUsersByIds(List.of(1, 2));
+
+        assertEquals(2, response.users().size());
+        assertEquals(List.of(), response.missingIds());
+        verify(replicaRouting).onPrimary(eq(ReplicaRouting.NOT_FOUND), any());
+    }
 }
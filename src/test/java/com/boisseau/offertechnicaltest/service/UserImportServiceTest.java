@@ -0,0 +1,52 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportServiceTest {
+
+    @Test
+    void splitCsvLine_handles_quotes() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), UserImportService.splitCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+    }
+
+    @Test
+    void splitCsvLine_unclosed_quote_throws_IllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> UserImportService.splitCsvLine("a,\"b"));
+    }
+
+    @Test
+    void parseCsv_reads_columns_in_header_order() throws IOException {
+        int[] columns = UserImportService.csvColumns("gender,phoneNumber,name,countryOfResidence,birthdate,comment");
+
+        UserCreationRequest request = UserImportService.parseCsv("female,,Cosette,France,2001-01-01,ignored", columns);
+
+        assertEquals(new UserCreationRequest("Cosette", LocalDate.of(2001, 1, 1), "France", null, Gender.FEMALE), request);
+    }
+
+    @Test
+    void parseCsv_invalid_values_throw_IllegalArgumentException() throws IOException {
+        int[] columns = UserImportService.csvColumns("name,birthdate,gender");
+
+        IllegalArgumentException date = assertThrows(IllegalArgumentException.class,
+                () -> UserImportService.parseCsv("Cosette,01/01/2001,Female", columns));
+        assertEquals("birthdate must be yyyy-MM-dd.", date.getMessage());
+
+        IllegalArgumentException gender = assertThrows(IllegalArgumentException.class,
+                () -> UserImportService.parseCsv("Cosette,2001-01-01,Unknown", columns));
+        assertEquals("gender must be Male, Female or Other.", gender.getMessage());
+    }
+
+    @Test
+    void csvColumns_without_name_throws_IOException() {
+        assertThrows(IOException.class, () -> UserImportService.csvColumns("birthdate,gender"));
+        assertThrows(IOException.class, () -> UserImportService.csvColumns(null));
+    }
+}
@@ -0,0 +1,148 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.User;
+import com.boisseau.offertechnicaltest.model.dto.UserPageResponse;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserListServiceTest {
+
+    @Mock
+    private UserRepo userRepo;
+
+    @InjectMocks
+    private UserListService userListService;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(userListService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(userListService, "maxPageSize", 10);
+    }
+
+    private static List<User> users(int fromId, int count) {
+        List<User> users = new ArrayList<>();
+        for (int id = fromId; id < fromId + count; id++) {
+            User user = new User();
+            user.setId(id);
+            user.setName("User " + id);
+            user.setBirthdate(LocalDate.of(2000, 1, 1));
+            user.setCountryOfResidence("France");
+            user.setGender(Gender.OTHER);
+            users.add(user);
+        }
+        return users;
+    }
+
+    @Test
+    void getUsers_full_page_returns_cursor_after_last_user() {
+        when(userRepo.findByIdGreaterThanOrderByIdAsc(Integer.MIN_VALUE, Limit.of(3))).thenReturn(users(1, 3));
+
+        UserPageResponse page = userListService.getUsers(null, null);
+
+        assertEquals(2, page.users().size());
+        assertEquals(2, page.users().get(1).id());
+        assertEquals(2, UserListService.decodeCursor(page.nextCursor()));
+    }
+
+    @Test
+    void getUsers_next_page_starts_after_cursor() {
+        when(userRepo.findByIdGreaterThanOrderByIdAsc(2, Limit.of(3))).thenReturn(users(3, 1));
+
+        UserPageResponse page = userListService.getUsers(UserListService.encodeCursor(2), null);
+
+        assertEquals(1, page.users().size());
+        assertEquals(3, page.users().get(0).id());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getUsers_invalid_size_throws_IllegalArgumentException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userListService.getUsers(null, 11));
+        assertEquals("Page size must be between 1 and 10.", e.getMessage());
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void getUsers_invalid_cursor_throws_IllegalArgumentException() {
+        for (String cursor : new String[] { "%%%", "aWQ6", "aWQ6YWJj", "eDox" }) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> userListService.getUsers(cursor, null));
+            assertEquals("Invalid cursor.", e.getMessage());
+        }
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void getUsers_by_name_uses_the_name_lookup_with_an_open_birthdate_range() {
+        when(userRepo.findByNameAndBirthdateBetweenAndIdGreaterThanOrderByIdAsc(
+                "User 3", LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), Integer.MIN_VALUE, Limit.of(3)))
+                .thenReturn(users(3, 1));
+
+        UserPageResponse page = userListService.getUsers(null, null, "User 3", null, null);
+
+        assertEquals(1, page.users().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getUsers_by_birthdate_pages_in_birthdate_then_id_order() {
+        LocalDate bornFrom = LocalDate.of(1990, 1, 1);
+        when(userRepo.findBirthdatePage(bornFrom, LocalDate.of(9999, 12, 31), bornFrom, Integer.MIN_VALUE, Limit.of(3)))
+                .thenReturn(users(3, 3));
+
+        UserPageResponse page = userListService.getUsers(null, null, null, bornFrom, null);
+
+        assertEquals(2, page.users().size());
+        assertEquals(new UserListService.BirthdateCursor(LocalDate.of(2000, 1, 1), 4),
+                UserListService.decodeBirthdateCursor(page.nextCursor()));
+    }
+
+    @Test
+    void getUsers_by_birthdate_starts_the_next_page_at_the_cursor() {
+        String cursor = UserListService.encodeBirthdateCursor(LocalDate.of(2000, 1, 1), 4);
+        when(userRepo.findBirthdatePage(LocalDate.of(2000, 1, 1), LocalDate.of(2010, 12, 31), LocalDate.of(2000, 1, 1), 4,
+                Limit.of(3)))
+                .thenReturn(users(5, 1));
+
+        UserPageResponse page = userListService.getUsers(cursor, null, null, LocalDate.of(1990, 1, 1), LocalDate.of(2010, 12, 31));
+
+        assertEquals(1, page.users().size());
+        assertNull(page.nextCursor());
+    }
+
+    // a cursor must come back with the filters it was read with
+    @Test
+    void getUsers_cursor_of_another_listing_throws_IllegalArgumentException() {
+        String birthdateCursor = UserListService.encodeBirthdateCursor(LocalDate.of(2000, 1, 1), 4);
+
+        assertThrows(IllegalArgumentException.class, () -> userListService.getUsers(birthdateCursor, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> userListService.getUsers(UserListService.encodeCursor(4), null, null, LocalDate.of(2000, 1, 1), null));
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void getUsers_reversed_birthdate_range_throws_IllegalArgumentException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> userListService.getUsers(null, null, null, LocalDate.of(2001, 1, 1), LocalDate.of(2000, 1, 1)));
+        assertEquals("bornFrom must not be after bornTo.", e.getMessage());
+        verifyNoInteractions(userRepo);
+    }
+}
@@ -1,15 +1,25 @@
 package com.boisseau.offertechnicaltest.service;
 
+import com.boisseau.offertechnicaltest.cache.MissingUserIdCache;
+import com.boisseau.offertechnicaltest.cache.PhoneNumberFilter;
+import com.boisseau.offertechnicaltest.metrics.UserMetrics;
+import com.boisseau.offertechnicaltest.cache.UserResponseCache;
+import com.boisseau.offertechnicaltest.config.ReplicaRouting;
+import com.boisseau.offertechnicaltest.exception.UserValidationException;
 import com.boisseau.offertechnicaltest.model.Gender;
 import com.boisseau.offertechnicaltest.model.User;
 import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
 import com.boisseau.offertechnicaltest.model.dto.UserResponse;
 import com.boisseau.offertechnicaltest.repository.UserRepo;
+import com.boisseau.offertechnicaltest.validation.CountryRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
 
 import java.time.LocalDate;
 
@@ -22,9 +32,32 @@ class UserRegisterServiceTest {
     @Mock
     private UserRepo userRepo;
 
+    @Mock
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Mock
+    private UserResponseCache userResponseCache;
+
+    @Mock
+    private UserMetrics userMetrics;
+
+    @Mock
+    private MissingUserIdCache missingUserIdCache;
+
+    @Spy
+    private CountryRegistry countryRegistry = new CountryRegistry();
+
+    @Mock
+    private ReplicaRouting replicaRouting;
+
     @InjectMocks
     private UserRegisterService userRegisterService;
 
+    @BeforeEach
+    void setup() {
+        countryRegistry.reload(new ClassPathResource("countries.csv"));
+    }
+
     // verifyUserName tests
     @Test
     void verifyUserName_valid() {
@@ -222,6 +255,7 @@ class UserRegisterServiceTest {
 
         UserResponse response = assertDoesNotThrow(() -> userRegisterService.addUser(request));
         verify(userRepo, times(1)).save(any(User.class));
+        verify(userResponseCache, times(1)).put(response);
 
         assertEquals("Jean Valjean", response.name());
         assertEquals(1, response.id());
@@ -757,4 +791,84 @@ class UserRegisterServiceTest {
 
         verify(userRepo, never()).save(any());
     }
+
+    // about the phone number filter
+    @Test
+    void addUser_phone_unknown_to_filter_skips_database_check() {
+        UserCreationRequest request = new UserCreationRequest(
+                "Jean Valjean",
+                LocalDate.now().minusYears(25),
+                "France",
+                "06 12 34 56 78",
+                Gender.MALE
+        );
+        when(phoneNumberFilter.mightContain(33612345678L)).thenReturn(false);
+        when(userRepo.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertDoesNotThrow(() -> userRegisterService.addUser(request));
+
+        verify(userRepo, never()).existsByPhoneKey(anyLong());
+        verify(phoneNumberFilter, times(1)).add(33612345678L);
+    }
+
+    @Test
+    void addUser_phone_known_to_filter_and_database_throws_and_does_not_save() {
+        UserCreationRequest request = new UserCreationRequest(
+                "Jean Valjean",
+                LocalDate.now().minusYears(25),
+                "France",
+                "06 12 34 56 78",
+                Gender.MALE
+        );
+        when(phoneNumberFilter.mightContain(33612345678L)).thenReturn(true);
+        when(userRepo.existsByPhoneKey(33612345678L)).thenReturn(true);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> userRegisterService.addUser(request));
+        assertEquals("This number is already used.", ex.getMessage());
+
+        verify(userRepo, never()).save(any());
+        verify(phoneNumberFilter, never()).add(anyLong());
+    }
+
+    @Test
+    void addUser_phone_false_positive_of_filter_saves_user() {
+        UserCreationRequest request = new UserCreationRequest(
+                "Jean Valjean",
+                LocalDate.now().minusYears(25),
+                "France",
+                "06 12 34 56 78",
+                Gender.MALE
+        );
+        when(phoneNumberFilter.mightContain(33612345678L)).thenReturn(true);
+        when(userRepo.existsByPhoneKey(33612345678L)).thenReturn(false);
+        when(userRepo.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertDoesNotThrow(() -> userRegisterService.addUser(request));
+
+        verify(phoneNumberFilter, times(1)).recordFalsePositive();
+        verify(userRepo, times(1)).save(any(User.class));
+    }
+
+    // about the order of the rules
+    @Test
+    void addUser_invalid_fields_skip_database_check_and_are_all_reported() {
+        UserCreationRequest request = new UserCreationRequest(
+                "Jean Valjean",
+                LocalDate.now().minusYears(10),
+                "Belgium",
+                "06 12 34 56 78",
+                Gender.MALE
+        );
+
+        UserValidationException ex = assertThrows(UserValidationException.class,
+                () -> userRegisterService.addUser(request));
+        assertEquals(2, ex.getResult().getViolations().size());
+        assertEquals("Only users from France are allowed. User must be at least 18 years old.", ex.getMessage());
+        assertEquals(0, ex.getStackTrace().length);
+
+        verifyNoInteractions(phoneNumberFilter);
+        verify(userRepo, never()).existsByPhoneKey(anyLong());
+        verify(userRepo, never()).save(any());
+    }
 }
@@ -0,0 +1,125 @@
+package com.boisseau.offertechnicaltest.service;
+
+import com.boisseau.offertechnicaltest.OfferTechnicalTestApplication;
+import com.boisseau.offertechnicaltest.model.dto.UserSnapshotResponse;
+import com.boisseau.offertechnicaltest.repository.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { OfferTechnicalTestApplication.class })
+@WebAppConfiguration
+class UserSnapshotServiceTest {
+
+    @Autowired
+    private UserSnapshotService userSnapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @TempDir
+    private Path directory;
+
+    // reset repository, then users with and without the optional fields
+    @BeforeEach
+    void setup() {
+        userRepo.deleteAll();
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+                + "VALUES (1, 'Jean Valjean', DATE '2000-01-01', 'France', '06 12 34 56 78', 33612345678, 'MALE')");
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender, "
+                + "registration_id) VALUES (2, 'Cosette', DATE '2001-02-28', 'France', NULL, NULL, NULL, "
+                + "'5f0c3c2e-8d4e-4b7a-9a51-2f1e6c0d9b13')");
+        jdbcTemplate.update("INSERT INTO users (id, name, birthdate, country_of_residence, phone_number, phone_key, gender) "
+                + "VALUES (3, 'Fantine \u00e9', DATE '1970-12-31', 'France', 'not a number', NULL, 'FEMALE')");
+    }
+
+    private List<Map<String, Object>> users() {
+        return jdbcTemplate.queryForList("SELECT * FROM users ORDER BY id");
+    }
+
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'USERS_SEQ'", Long.class);
+    }
+
+    @Test
+    void snapshot_then_restore_gives_back_the_same_rows() {
+        List<Map<String, Object>> before = users();
+        Path file = directory.resolve("users.snapshot");
+
+        UserSnapshotResponse snapshot = userSnapshotService.snapshot(file);
+        jdbcTemplate.update("DELETE FROM users");
+        UserSnapshotResponse restored = userSnapshotService.restore(file);
+
+        assertEquals(3, snapshot.users());
+        assertEquals(3, restored.users());
+        assertEquals(before, users());
+        // write-behind replay finds its users by it
+        assertEquals(2, userRepo.findByRegistrationIdIn(List.of("5f0c3c2e-8d4e-4b7a-9a51-2f1e6c0d9b13")).get(0).getId());
+        assertFalse(Files.exists(directory.resolve("users.snapshot.partial")));
+        // new users do not reuse a restored id
+        assertTrue(nextSequenceValue() > 3);
+    }
+
+    @Test
+    void restore_into_a_non_empty_table_throws_IllegalArgumentException() {
+        Path file = directory.resolve("users.snapshot");
+        userSnapshotService.snapshot(file);
+
+        assertThrows(IllegalArgumentException.class, () -> userSnapshotService.restore(file));
+        assertEquals(3, userRepo.count());
+    }
+
+    @Test
+    void restore_of_a_truncated_file_throws_IllegalArgumentException_and_loads_nothing() throws Exception {
+        Path file = directory.resolve("users.snapshot");
+        userSnapshotService.snapshot(file);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 4));
+        jdbcTemplate.update("DELETE FROM users");
+
+        assertThrows(IllegalArgumentException.class, () -> userSnapshotService.restore(file));
+        assertEquals(0, userRepo.count());
+    }
+
+    @Test
+    void restore_of_a_file_with_a_wrong_checksum_throws_IllegalArgumentException_and_loads_nothing() throws Exception {
+        Path file = directory.resolve("users.snapshot");
+        userSnapshotService.snapshot(file);
+        byte[] content = Files.readAllBytes(file);
+        content[content.length - 1] ^= 1;
+        Files.write(file, content);
+        jdbcTemplate.update("DELETE FROM users");
+
+        assertThrows(IllegalArgumentException.class, () -> userSnapshotService.restore(file));
+        assertEquals(0, userRepo.count());
+    }
+
+    @Test
+    void restore_of_another_file_throws_IllegalArgumentException() throws Exception {
+        Path file = directory.resolve("users.csv");
+        Files.writeString(file, "name,birthdate\nCosette,2001-01-01\n");
+        jdbcTemplate.update("DELETE FROM users");
+
+        assertThrows(IllegalArgumentException.class, () -> userSnapshotService.restore(file));
+        assertThrows(IllegalArgumentException.class, () -> userSnapshotService.restore(directory.resolve("missing.snapshot")));
+    }
+}
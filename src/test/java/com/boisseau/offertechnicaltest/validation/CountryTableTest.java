@@ -0,0 +1,73 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountryTableTest {
+
+    private static final String HEADER = "# code;alpha3Code;name;aliases;allowed;minimumAge;callingCode;trunkPrefix;nationalDigits;leadingZero;phoneFormat\n";
+
+    private static CountryTable parse(String lines) throws IOException {
+        return CountryTable.parse(new ByteArrayInputStream((HEADER + lines).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void resolve_by_code_name_or_alias_whatever_the_case() throws IOException {
+        CountryTable table = parse("""
+                FR;FRA;France;R\u00e9publique fran\u00e7aise;true;18;33;0;9;false;0X XX XX XX XX
+                DE;DEU;Germany;Deutschland|Allemagne;true;16;49;0;6-11;false;0XXX XXXXXXX
+                """);
+
+        assertEquals("FR", table.resolve("fr").code());
+        assertEquals("FR", table.resolve("FRA").code());
+        assertEquals("FR", table.resolve("R\u00c9PUBLIQUE FRAN\u00c7AISE").code());
+        assertEquals("DE", table.resolve("allemagne").code());
+        assertEquals(16, table.resolve("DEUTSCHLAND").minimumAge());
+        assertNull(table.resolve("Narnia"));
+        assertNull(table.resolve(" France"));
+        assertNull(table.resolve(null));
+        assertEquals("FR", table.resolveOrDefault("Narnia").code());
+    }
+
+    @Test
+    void not_allowed_message_lists_allowed_countries() throws IOException {
+        assertEquals("Only users from France are allowed.", parse("""
+                FR;FRA;France;;true;18;33;0;9;false;0X XX XX XX XX
+                BE;BEL;Belgium;;false;18;32;0;8-9;false;0XX XX XX XX
+                """).getNotAllowed().message());
+        assertEquals("Only users from France, Belgium or Spain are allowed.", parse("""
+                FR;FRA;France;;true;18;33;0;9;false;0X XX XX XX XX
+                BE;BEL;Belgium;;true;18;32;0;8-9;false;0XX XX XX XX
+                ES;ESP;Spain;;true;18;34;;9;false;XXX XX XX XX
+                """).getNotAllowed().message());
+    }
+
+    @Test
+    void invalid_tables_are_refused() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> parse("""
+                FR;FRA;France;Gaule;true;18;33;0;9;false;0X XX XX XX XX
+                IT;ITA;Italy;gaule;true;18;39;;6-11;true;0X XXXXXXXX
+                """));
+        assertEquals("\"gaule\" names both FR and IT.", ex.getMessage());
+
+        ex = assertThrows(IllegalArgumentException.class, () -> parse("FR;FRA;France;;true;18;33;0;nine;false;0X\n"));
+        assertEquals("Country table line 2: Invalid number: nine.", ex.getMessage());
+
+        ex = assertThrows(IllegalArgumentException.class, () -> parse("BE;BEL;Belgium;;false;18;32;0;8-9;false;0XX\n"));
+        assertEquals("At least one country must be allowed.", ex.getMessage());
+    }
+
+    @Test
+    void shipped_table_loads() throws IOException {
+        CountryTable table = CountryTable.parse(getClass().getResourceAsStream("/countries.csv"));
+
+        assertEquals("FR", table.getDefaultCountry().code());
+        assertEquals("Only users from France are allowed.", table.getNotAllowed().message());
+        assertFalse(table.resolve("Belgium").allowed());
+    }
+}
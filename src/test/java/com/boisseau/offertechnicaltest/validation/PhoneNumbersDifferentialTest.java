@@ -0,0 +1,106 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// PhoneNumbers.toKey() must accept and reject exactly what the former regex check did.
+class PhoneNumbersDifferentialTest {
+
+    private static final Pattern FORMER_RULE = Pattern.compile("^((\\+)33|0)[1-9](\\d{2}){4}$");
+
+    private static final int INPUTS = 2_000_000;
+
+    // mostly characters the rule cares about, plus a few it must refuse
+    private static final char[] ALPHABET = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9',
+            '0', '3', '3', '6', ' ', ' ', ' ', '+', '+',
+            'a', '-', '.', '\t', '\n', '\u00a0', '\u0663', '\uff10'
+    };
+
+    private static final String[] VALID = {
+            "0612345678", "06 12 34 56 78", "+33612345678", "+33 6 12 34 56 78", "0123456789", "+33999999999"
+    };
+
+    private static String randomInput(SplittableRandom random) {
+        StringBuilder input = new StringBuilder();
+        int length = random.nextInt(19);
+        for (int i = 0; i < length; i++) {
+            input.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+        }
+        return input.toString();
+    }
+
+    // a valid number with one to three random edits
+    private static String mutatedInput(SplittableRandom random) {
+        StringBuilder input = new StringBuilder(VALID[random.nextInt(VALID.length)]);
+        int edits = 1 + random.nextInt(3);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(input.length() + 1);
+            char c = ALPHABET[random.nextInt(ALPHABET.length)];
+            switch (random.nextInt(4)) {
+                case 0 -> input.insert(position, c);
+                case 1 -> {
+                    if (position < input.length()) {
+                        input.deleteCharAt(position);
+                    }
+                }
+                case 2 -> {
+                    if (position < input.length()) {
+                        input.setCharAt(position, c);
+                    }
+                }
+                default -> input.insert(position, ' ');
+            }
+        }
+        return input.toString();
+    }
+
+    // what the former rule would have produced as a key
+    private static long expectedKey(String input) {
+        String compact = input.replace(" ", "");
+        if (!FORMER_RULE.matcher(compact).matches()) {
+            return PhoneNumbers.NO_KEY;
+        }
+        return 33_000_000_000L + Long.parseLong(compact.substring(compact.length() - 9));
+    }
+
+    @Test
+    void toKey_agrees_with_former_regex_on_generated_inputs() {
+        SplittableRandom random = new SplittableRandom(20_240_501L);
+        int accepted = 0;
+        for (int n = 0; n < INPUTS; n++) {
+            String input = random.nextBoolean() ? randomInput(random) : mutatedInput(random);
+            long expected = expectedKey(input);
+            long actual = PhoneNumbers.toKey(input);
+            if (expected != actual) {
+                fail("Mismatch for \"" + input + "\": regex gives " + expected + ", parser gives " + actual);
+            }
+            if (actual != PhoneNumbers.NO_KEY) {
+                accepted++;
+            }
+        }
+        // the generator must exercise both outcomes
+        assertTrue(accepted > INPUTS / 100);
+        assertTrue(accepted < INPUTS / 2);
+    }
+
+    @Test
+    void toKey_agrees_with_former_regex_on_edge_cases() {
+        String[] inputs = {
+                "", " ", "0", "+", "+3", "+33", "+33 ", "0 ", "06", "061234567", "06123456789",
+                "0012345678", "+330612345678", "+3306 12 34 56 78", "+ 3 3 6 1 2 3 4 5 6 7 8",
+                " 0612345678 ", "0612345678\n", "\n0612345678", "06\t12345678", "33612345678",
+                "+33612345678 ", "++33612345678", "+34612345678", "0\u0661612345678", "0612345\uff1978"
+        };
+        for (String input : inputs) {
+            assertEquals(expectedKey(input), PhoneNumbers.toKey(input), () -> "input \"" + input + "\"");
+        }
+        for (String input : VALID) {
+            assertNotEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey(input), () -> "input \"" + input + "\"");
+        }
+    }
+}
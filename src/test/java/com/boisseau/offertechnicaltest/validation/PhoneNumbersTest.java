@@ -0,0 +1,55 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhoneNumbersTest {
+
+    @Test
+    void toKey_all_french_formats_give_same_key() {
+        assertEquals(33612345678L, PhoneNumbers.toKey("0612345678"));
+        assertEquals(33612345678L, PhoneNumbers.toKey("06 12 34 56 78"));
+        assertEquals(33612345678L, PhoneNumbers.toKey("+33612345678"));
+        assertEquals(33612345678L, PhoneNumbers.toKey("+33 6 12 34 56 78"));
+    }
+
+    @Test
+    void toKey_landline_number() {
+        assertEquals(33123456789L, PhoneNumbers.toKey("01 23 45 67 89"));
+    }
+
+    @Test
+    void toKey_invalid_numbers_give_no_key() {
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey(null));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey(""));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey("061234"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey("0012345678"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey("+44612345678"));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey("06AB345678"));
+    }
+
+    @Test
+    void toE164_formats_key() {
+        assertEquals("+33612345678", PhoneNumbers.toE164(33612345678L));
+    }
+
+    @Test
+    void toKey_follows_the_plan() {
+        PhonePlan spain = new PhonePlan("34", "", 9, 9, false);
+        assertEquals(34612345678L, PhoneNumbers.toKey("612 34 56 78", spain));
+        assertEquals(34612345678L, PhoneNumbers.toKey("+34 612 34 56 78", spain));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey("0612345678", spain));
+
+        // Italian landlines keep their leading 0 after the calling code
+        PhonePlan italy = new PhonePlan("39", "", 6, 11, true);
+        assertEquals(39061234567L, PhoneNumbers.toKey("06 1234567", italy));
+        assertEquals(39061234567L, PhoneNumbers.toKey("+39 06 1234567", italy));
+        assertNotEquals(PhoneNumbers.toKey("+39 6 1234567", italy), PhoneNumbers.toKey("+39 06 1234567", italy));
+
+        PhonePlan belgium = new PhonePlan("32", "0", 8, 9, false);
+        assertEquals(3221234567L, PhoneNumbers.toKey("02 123 45 67", belgium));
+        assertEquals(32471234567L, PhoneNumbers.toKey("+32 471 23 45 67", belgium));
+        assertEquals(PhoneNumbers.NO_KEY, PhoneNumbers.toKey("0471 23 45 67 8", belgium));
+    }
+}
@@ -0,0 +1,102 @@
+package com.boisseau.offertechnicaltest.validation;
+
+import com.boisseau.offertechnicaltest.model.Gender;
+import com.boisseau.offertechnicaltest.model.dto.UserCreationRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserRulesTest {
+
+    private static CountryTable countries;
+
+    @BeforeAll
+    static void loadCountries() throws IOException {
+        try (InputStream in = UserRulesTest.class.getResourceAsStream("/countries.csv")) {
+            countries = CountryTable.parse(in);
+        }
+    }
+
+    private static List<String> rules(ValidationResult result) {
+        return result.getViolations().stream().map(Violation::rule).toList();
+    }
+
+    @Test
+    void validate_valid_request_returns_shared_valid_result() {
+        ValidationResult result = UserRules.validate(new UserCreationRequest(
+                "Jean Valjean", LocalDate.of(1990, 1, 1), "France", "06 12 34 56 78", Gender.MALE), countries);
+
+        assertTrue(result.isValid());
+        assertSame(ValidationResult.VALID, result);
+    }
+
+    @Test
+    void validate_collects_one_violation_per_failing_field_cheapest_first() {
+        ValidationResult result = UserRules.validate(new UserCreationRequest(
+                "", null, "", "0012345678", Gender.MALE), countries);
+
+        assertFalse(result.isValid());
+        assertEquals(List.of("name.required", "country.required", "phone.invalid", "birthdate.required"), rules(result));
+        assertEquals(List.of("name", "countryOfResidence", "phoneNumber", "birthdate"),
+                result.getViolations().stream().map(Violation::field).toList());
+    }
+
+    @Test
+    void validate_reports_only_the_first_failing_rule_of_a_field() {
+        ValidationResult result = UserRules.validate(new UserCreationRequest(
+                "Jean Valjean", LocalDate.now().plusDays(1), "France", null, Gender.MALE), countries);
+
+        assertEquals(List.of("birthdate.future"), rules(result));
+        assertEquals("Birthdate cannot be in the future.", result.getMessage());
+    }
+
+    @Test
+    void validate_null_request_is_rejected() {
+        ValidationResult result = UserRules.validate(null, countries);
+
+        assertEquals(List.of(UserRules.USER_REQUIRED), result.getViolations());
+    }
+
+    @Test
+    void validate_accepts_country_code_and_alias_in_any_case() {
+        for (String country : List.of("FR", "fra", "FRANCE", "r\u00e9publique fran\u00e7aise")) {
+            assertTrue(UserRules.validate(new UserCreationRequest(
+                    "Jean Valjean", LocalDate.of(1990, 1, 1), country, null, Gender.MALE), countries).isValid(), country);
+        }
+    }
+
+    @Test
+    void validate_checks_phone_number_against_plan_of_the_country() {
+        // a Spanish number, with the Spanish format in the message
+        ValidationResult result = UserRules.validate(new UserCreationRequest(
+                "Jean Valjean", LocalDate.of(1990, 1, 1), "Espa\u00f1a", "612 34 56 78", Gender.MALE), countries);
+        assertEquals(List.of("country.not-allowed"), rules(result));
+
+        result = UserRules.validate(new UserCreationRequest(
+                "Jean Valjean", LocalDate.of(1990, 1, 1), "Spain", "06 12 34 56 78", Gender.MALE), countries);
+        assertEquals(List.of("country.not-allowed", "phone.invalid"), rules(result));
+        assertTrue(result.getViolations().get(1).message().endsWith("XXX XX XX XX or +34 XXX XX XX XX."));
+    }
+
+    @Test
+    void check_birthdate_boundaries() {
+        Country france = countries.resolve("FR");
+        assertNull(UserRules.checkBirthdate(LocalDate.now().minusYears(18), france));
+        assertEquals("birthdate.underage",
+                UserRules.checkBirthdate(LocalDate.now().minusYears(18).plusDays(1), france).rule());
+    }
+
+    @Test
+    void check_phone_number_is_optional() {
+        Country france = countries.resolve("FR");
+        assertNull(UserRules.checkPhoneNumber(null, france));
+        assertNull(UserRules.checkPhoneNumber("+33 6 12 34 56 78", france));
+        assertEquals("phone.invalid", UserRules.checkPhoneNumber("", france).rule());
+    }
+}